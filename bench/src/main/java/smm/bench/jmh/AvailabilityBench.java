@@ -0,0 +1,89 @@
+package smm.bench.jmh;
+
+import org.openjdk.jmh.annotations.*;
+import smm.model.AvailabilityEngine;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AvailabilityEngine with 1k doctors booked over the next year: every
+ * half-hour of opening time is taken with probability "busy" percent.
+ * The bitsets are filled directly (building millions of Appointments would
+ * only measure the store).
+ *
+ * service: next 5 free slots among one service's 50 doctors;
+ * allDoctors: next 10 among all 1000; bookAndRelease: what the store does
+ * to the bits for one booking and its cancellation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class AvailabilityBench {
+    private static final int DOCTORS = 1000, PER_SERVICE = 50, DAYS = 365, SLOTS_PER_DAY = 20;
+
+    @Param({"50", "95"})
+    public int busy;
+
+    private final LocalDate start = LocalDate.now();
+    private AvailabilityEngine engine;
+    private List<String> all;
+    private List<List<String>> services;
+    private LocalDateTime[] froms;
+    private String[] bookDoctors;
+    private int i;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rnd = new Random(42);
+        engine = new AvailabilityEngine();
+        all = new ArrayList<>(DOCTORS);
+        services = new ArrayList<>();
+        for (int d = 0; d < DOCTORS; d++) {
+            String doctor = "Dr. " + d;
+            all.add(doctor);
+            if (d % PER_SERVICE == 0) services.add(new ArrayList<>(PER_SERVICE));
+            services.get(services.size() - 1).add(doctor);
+            for (int day = 0; day < DAYS; day++) {
+                for (int s = 0; s < SLOTS_PER_DAY; s++) {
+                    if (rnd.nextInt(100) < busy) {
+                        engine.occupy(doctor, LocalDateTime.of(start.plusDays(day), LocalTime.of(8, 0).plusMinutes(30L * s)));
+                    }
+                }
+            }
+        }
+        froms = new LocalDateTime[1024];
+        bookDoctors = new String[1024];
+        for (int k = 0; k < froms.length; k++) {
+            froms[k] = LocalDateTime.of(start.plusDays(rnd.nextInt(DAYS)), LocalTime.of(7 + rnd.nextInt(12), 15 * rnd.nextInt(4)));
+            bookDoctors[k] = all.get(rnd.nextInt(DOCTORS));
+        }
+    }
+
+    @Benchmark
+    public List<AvailabilityEngine.FreeSlot> service() {
+        int k = i++ & 1023;
+        return engine.nextFree(services.get(k % services.size()), froms[k], 5);
+    }
+
+    @Benchmark
+    public List<AvailabilityEngine.FreeSlot> allDoctors() {
+        int k = i++ & 1023;
+        return engine.nextFree(all, froms[k], 10);
+    }
+
+    @Benchmark
+    public void bookAndRelease() {
+        int k = i++ & 1023;
+        engine.occupy(bookDoctors[k], froms[k]);
+        engine.release(bookDoctors[k], froms[k]);
+    }
+}
@@ -0,0 +1,60 @@
+package smm.bench.jmh;
+
+import smm.model.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Random;
+
+/**
+ * Synthetic patient files for the benchmarks; same seed, same data.
+ *
+ * "rows" appointments spread over the year after "start", each with its
+ * invoice (a third unpaid), plus rows/2 history records over the year
+ * before and rows/10 reminders. Doctors, centers and services come from
+ * small pools, like a real clinic's catalog.
+ */
+public final class BenchData {
+    public static final String[] TYPES = {"Consultation", "Surgery", "Follow-up"};
+    public static final String[] SERVICES = {"Dermatology", "Cardiology", "General", "Pediatrics", "Radiology", "Neurology"};
+    public static final String[] CENTERS = {"St-Luc", "CHU", "Erasme", "Bordet"};
+    public static final String[] DOCTORS = new String[200];
+    static {
+        for (int i = 0; i < DOCTORS.length; i++) DOCTORS[i] = "Dr. " + (char) ('A' + i % 26) + "-" + i;
+    }
+
+    private BenchData() {}
+
+    /** A model (demo data included) grown to "rows" appointments. */
+    public static AppModel model(int rows, LocalDate start, long seed) {
+        Random rnd = new Random(seed);
+        AppModel m = new AppModel();
+        for (int i = 0; i < rows; i++) {
+            Appointment a = appointment(rnd, start.plusDays(1 + rnd.nextInt(365)));
+            m.appointments.add(a);
+            boolean paid = rnd.nextInt(3) != 0;
+            a.paid = paid;
+            m.appointments.reindex(a);
+            m.invoices.add(new Invoice(start, a.price, paid, a.id));
+        }
+        for (int i = 0; i < rows / 2; i++) {
+            m.history.add(new HistoryRecord(start.minusDays(rnd.nextInt(365)), TYPES[rnd.nextInt(TYPES.length)],
+                    "Completed: " + SERVICES[rnd.nextInt(SERVICES.length)] + " with "
+                            + DOCTORS[rnd.nextInt(DOCTORS.length)] + " @ " + CENTERS[rnd.nextInt(CENTERS.length)]));
+        }
+        for (int i = 0; i < rows / 10; i++) {
+            m.addReminder(new Reminder(i % 2 == 0 ? "appointment" : "medication", "Reminder " + i,
+                    LocalDateTime.of(start.plusDays(rnd.nextInt(365)), LocalTime.of(8, 0))));
+        }
+        return m;
+    }
+
+    /** One random appointment on "date". */
+    public static Appointment appointment(Random rnd, LocalDate date) {
+        return new Appointment(date, LocalTime.of(8 + rnd.nextInt(10), 15 * rnd.nextInt(4)),
+                TYPES[rnd.nextInt(TYPES.length)], SERVICES[rnd.nextInt(SERVICES.length)],
+                DOCTORS[rnd.nextInt(DOCTORS.length)], CENTERS[rnd.nextInt(CENTERS.length)],
+                rnd.nextBoolean() ? "Shared" : "Private", "—", 50 + rnd.nextInt(200));
+    }
+}
@@ -0,0 +1,108 @@
+package smm.bench.jmh;
+
+import org.openjdk.jmh.annotations.*;
+import smm.controller.Controller;
+import smm.model.Appointment;
+import smm.model.BookingRequest;
+import smm.model.BookingResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importing a schedule: "batch" bookings through Controller.tryBooking one
+ * at a time, against one Controller.createBookings call; both check every
+ * request for conflicts. They run on a 10k appointment model (rebuilt every
+ * iteration) with the state logs written as in the app. Each call books the
+ * requests a year later than the last, so it isn't rejected by the previous
+ * call's bookings. The "bookings" counter is the throughput in bookings/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class BookingBench {
+    @Param({"100", "10000"})
+    public int batch;
+
+    private final LocalDate start = LocalDate.now();
+    private Path logDir;
+    private Controller controller;
+    private List<BookingRequest> template, requests;
+    private int round;
+
+    /** Bookings made, reported per second next to the per-call rate. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long bookings;
+    }
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException {
+        logDir = Files.createTempDirectory("smm-bench");
+        Random rnd = new Random(7);
+        template = new ArrayList<>(batch);
+        for (int i = 0; i < batch; i++) {
+            Appointment a = BenchData.appointment(rnd, start.plusDays(1 + rnd.nextInt(365)));
+            template.add(new BookingRequest(a.date, a.time, a.type, a.service, a.doctor, a.medicalCenter,
+                    a.roomType, a.equipment, a.price, rnd.nextBoolean(), rnd.nextBoolean()));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        controller = new Controller(BenchData.model(10_000, start, 42), logDir);
+        round = 0;
+        System.gc();
+    }
+
+    @Setup(Level.Invocation)
+    public void nextYear() {
+        int years = ++round;
+        requests = new ArrayList<>(batch);
+        for (BookingRequest r : template) {
+            requests.add(new BookingRequest(r.date().plusYears(years), r.time(), r.type(), r.service(), r.doctor(),
+                    r.center(), r.room(), r.equipment(), r.basePrice(), r.addToCalendar(), r.payNow()));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        controller.flushStateLogs();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        try (var files = Files.list(logDir)) {
+            for (Path p : (Iterable<Path>) files::iterator) Files.deleteIfExists(p);
+        }
+        Files.deleteIfExists(logDir);
+    }
+
+    @Benchmark
+    public BookingResult oneByOne(Counters counters) {
+        BookingResult last = null;
+        for (BookingRequest r : requests) {
+            last = controller.tryBooking(r.date(), r.time(), r.type(), r.service(), r.doctor(), r.center(),
+                    r.room(), r.equipment(), r.basePrice(), r.addToCalendar(), r.payNow());
+            if (last.isBooked()) counters.bookings++;
+        }
+        return last;
+    }
+
+    @Benchmark
+    public List<BookingResult> batch(Counters counters) {
+        List<BookingResult> results = controller.createBookings(requests);
+        for (BookingResult r : results) if (r.isBooked()) counters.bookings++;
+        return results;
+    }
+}
@@ -0,0 +1,100 @@
+package smm.bench.jmh;
+
+import org.openjdk.jmh.annotations.*;
+import smm.controller.Controller;
+import smm.model.AppModel;
+import smm.model.InsuranceLevel;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controller.activate and the state logs.
+ *
+ * getStateAsLog* are measured both cached (nothing changed since the last
+ * call) and rebuilt (the insurance level flips before every call, which
+ * dirties all three logs).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class ControllerBench {
+    private static final String[][] FEATURES_A = {{"INSURANCE_NORMAL", "OUT_OF_POCKET", "MEDICATION_REMINDER"},
+                                                  {"INSURANCE_PREMIUM", "PRICE_REDUCTION", "PAYMENT", "REMINDERS"}};
+    private static final String[][] FEATURES_B = {{"INSURANCE_PREMIUM", "PRICE_REDUCTION", "REMINDERS"},
+                                                  {"insurance_minimal", " deferred_payment ", "MEDICATION_REMINDER"}};
+
+    @Param({"10", "10000", "1000000"})
+    public int rows;
+
+    private Path logDir;
+    private Controller controller;
+    private AppModel model;
+    private boolean flip;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        logDir = Files.createTempDirectory("smm-bench");
+        model = BenchData.model(rows, LocalDate.now(), 42);
+        controller = new Controller(model, logDir);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        controller.flushStateLogs();
+        try (var files = Files.list(logDir)) {
+            for (Path p : (Iterable<Path>) files::iterator) Files.deleteIfExists(p);
+        }
+        Files.deleteIfExists(logDir);
+    }
+
+    /** Alternates between two feature sets, so every call changes modules, insurance and pricing. */
+    @Benchmark
+    public int activate() {
+        String[][] f = (flip = !flip) ? FEATURES_A : FEATURES_B;
+        return controller.activate(f[0], f[1]);
+    }
+
+    /** The same activation every call: state settles, so this is parsing and derivation (logs stay cached). */
+    @Benchmark
+    public int activateUnchanged() {
+        return controller.activate(FEATURES_A[0], FEATURES_A[1]);
+    }
+
+    @Benchmark
+    public String[] stateLogCached() { return controller.getStateAsLog(); }
+
+    @Benchmark
+    public String[] stateLog1Cached() { return controller.getStateAsLog1(); }
+
+    @Benchmark
+    public String[] stateLog3Cached() { return controller.getStateAsLog3(); }
+
+    @Benchmark
+    public String[] stateLogRebuilt() {
+        flipInsurance();
+        return controller.getStateAsLog();
+    }
+
+    @Benchmark
+    public String[] stateLog1Rebuilt() {
+        flipInsurance();
+        return controller.getStateAsLog1();
+    }
+
+    @Benchmark
+    public String[] stateLog3Rebuilt() {
+        flipInsurance();
+        return controller.getStateAsLog3();
+    }
+
+    private void flipInsurance() {
+        model.profile.insurance = (flip = !flip) ? InsuranceLevel.PREMIUM : InsuranceLevel.MINIMAL;
+    }
+}
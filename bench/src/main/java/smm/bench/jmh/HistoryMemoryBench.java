@@ -0,0 +1,74 @@
+package smm.bench.jmh;
+
+import smm.model.HistoryLog;
+import smm.model.HistoryRecord;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Heap per history record: the old ArrayList of HistoryRecord objects versus
+ * the columnar HistoryLog (search indexes included).
+ *
+ * A heap measurement, not a JMH benchmark, so it has its own main:
+ * java -Xms2g -Xmx2g -cp bench/target/benchmarks.jar smm.bench.jmh.HistoryMemoryBench [records]
+ * (default 1,000,000). The fixed heap keeps the numbers stable.
+ */
+public class HistoryMemoryBench {
+
+    private static final String[] KINDS = {"Consultation", "Prescription", "Surgery", "Checkup", "Vaccination"};
+    private static final String[] SERVICES = {"Dermatology", "Cardiology", "General", "Pediatrics", "Radiology", "Dentistry"};
+    private static final String[] DOCTORS = {"Dr. Martin", "Dr. Duval", "Dr. Leroy", "Dr. Petit", "Dr. Moreau", "Dr. Simon"};
+    private static final String[] CENTERS = {"St-Luc", "CHU", "Erasme", "Bordet"};
+    private static final String[] DRUGS = {"Paracetamol 1g", "Amoxicillin 500mg", "Ibuprofen 400mg", "Vitamin D"};
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.printf("records: %,d%n", n);
+
+        long base = usedHeap();
+        List<HistoryRecord> list = new ArrayList<>();
+        fill(list, n);
+        long listBytes = usedHeap() - base;
+        report("ArrayList<HistoryRecord>", listBytes, n, list.size());
+        list = null;
+
+        base = usedHeap();
+        HistoryLog log = new HistoryLog();
+        fill(log, n);
+        long logBytes = usedHeap() - base;
+        report("HistoryLog (columnar)", logBytes, n, log.size());
+
+        System.out.printf("ratio: %.1fx%n", (double) listBytes / logBytes);
+    }
+
+    /** Decades of mostly "Completed: …" lines, built fresh each time like onTimeAdvanced does. */
+    private static void fill(List<HistoryRecord> out, int n) {
+        Random rnd = new Random(42);
+        LocalDate day = LocalDate.of(1990, 1, 1);
+        for (int i = 0; i < n; i++) {
+            if (rnd.nextInt(4) == 0) day = day.plusDays(1);
+            String kind = KINDS[rnd.nextInt(KINDS.length)];
+            String details = rnd.nextInt(5) == 0
+                    ? DRUGS[rnd.nextInt(DRUGS.length)] + " x" + (1 + rnd.nextInt(3))
+                    : "Completed: " + SERVICES[rnd.nextInt(SERVICES.length)]
+                      + " with " + DOCTORS[rnd.nextInt(DOCTORS.length)]
+                      + " @ " + CENTERS[rnd.nextInt(CENTERS.length)];
+            out.add(new HistoryRecord(day, kind, details));
+        }
+    }
+
+    private static void report(String name, long bytes, int n, int size) {
+        System.out.printf("%-26s %,14d bytes  %6.1f bytes/record  (size %,d)%n",
+                name, bytes, (double) bytes / n, size);
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            try { Thread.sleep(50); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
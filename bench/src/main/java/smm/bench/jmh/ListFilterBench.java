@@ -0,0 +1,65 @@
+package smm.bench.jmh;
+
+import org.openjdk.jmh.annotations.*;
+import smm.model.AppModel;
+import smm.model.AppointmentTable;
+import smm.view.pages.AppointmentsPages;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AppointmentsPages.ListPage filtering, without Swing: the column snapshot
+ * taken on the EDT, then the worker's filter/sort/price pass (ListPage.Query).
+ * snapshot() is the per-keystroke case (nothing changed, the cached copy);
+ * snapshotAfterEdit() pays for the copy an edit forces.
+ *
+ * The filter keeps a quarter year of one type, doctor text "dr. a" (about a
+ * 26th of the doctors).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class ListFilterBench {
+    @Param({"10", "10000", "1000000"})
+    public int rows;
+
+    @Param({"Date ↓", "Doctor"})
+    public String sort;
+
+    private final LocalDate start = LocalDate.now();
+    private AppModel model;
+    private AppointmentTable.Snapshot snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        model = BenchData.model(rows, start, 42);
+        snapshot = model.appointments.table().snapshot();
+    }
+
+    @Benchmark
+    public AppointmentTable.Snapshot snapshot() {
+        return model.appointments.table().snapshot();
+    }
+
+    @Benchmark
+    public AppointmentTable.Snapshot snapshotAfterEdit() {
+        model.appointments.reindex(model.appointments.first());
+        return model.appointments.table().snapshot();
+    }
+
+    @Benchmark
+    public AppointmentsPages.ListPage.Query query() {
+        return new AppointmentsPages.ListPage.Query(1, "Consultation", "dr. a", sort,
+                start, start.plusDays(90), snapshot, model.profile.insurance, model.pricing).run(() -> false);
+    }
+
+    @Benchmark
+    public AppointmentsPages.ListPage.Query queryAll() {
+        return new AppointmentsPages.ListPage.Query(1, "All", "", sort,
+                start, start.plusDays(366), snapshot, model.profile.insurance, model.pricing).run(() -> false);
+    }
+}
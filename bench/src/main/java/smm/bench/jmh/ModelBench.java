@@ -0,0 +1,64 @@
+package smm.bench.jmh;
+
+import org.openjdk.jmh.annotations.*;
+import smm.model.AppModel;
+import smm.model.Appointment;
+import smm.model.TimeEvent;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AppModel.createAppointment and AppModel.onTimeAdvanced.
+ *
+ * Both change the model, so it is rebuilt before every iteration.
+ * onTimeAdvanced is measured in a steady state: each operation advances one
+ * day, which moves about rows / 365 appointments to history, and books them
+ * again a year later so the model keeps "rows" appointments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class ModelBench {
+    @Param({"10", "10000", "1000000"})
+    public int rows;
+
+    private final LocalDate start = LocalDate.now();
+    private AppModel model;
+    private Random rnd;
+    private LocalDate today;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        model = BenchData.model(rows, start, 42);
+        rnd = new Random(7);
+        today = start;
+        System.gc(); // keep collecting the previous model out of the timings
+    }
+
+    /** A new booking with its invoice and calendar reminder (what Controller.createBooking does). */
+    @Benchmark
+    public Appointment createAppointment() {
+        Appointment a = BenchData.appointment(rnd, start.plusDays(1 + rnd.nextInt(365)));
+        return model.createAppointment(a, true, rnd.nextBoolean());
+    }
+
+    @Benchmark
+    public int onTimeAdvanced() {
+        List<Appointment> due = new ArrayList<>(model.appointments.on(today)); // drained by this advance
+        LocalDate next = today.plusDays(1);
+        model.onTimeAdvanced(new TimeEvent(today, next, List.of()));
+        for (Appointment a : due) {
+            a.date = a.date.plusDays(365);
+            model.appointments.add(a);
+        }
+        today = next;
+        return due.size();
+    }
+}
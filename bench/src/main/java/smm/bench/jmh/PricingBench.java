@@ -0,0 +1,59 @@
+package smm.bench.jmh;
+
+import org.openjdk.jmh.annotations.*;
+import smm.model.AppModel;
+import smm.model.InsuranceLevel;
+import smm.model.PricingEngine;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plan pricing: one call per price (how ListPage priced rows before) against
+ * PricingEngine's bulk loop, and repriceAll over a model's unpaid invoices
+ * (a third of "rows"; the plan flips every call so they all change).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class PricingBench {
+    @Param({"10", "10000", "1000000"})
+    public int rows;
+
+    private double[] base, out;
+    private AppModel model;
+    private boolean flip;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rnd = new Random(42);
+        base = new double[rows];
+        out = new double[rows];
+        for (int i = 0; i < rows; i++) base[i] = 50 + rnd.nextInt(20_000) / 100.0;
+        model = BenchData.model(rows, LocalDate.now(), 42);
+    }
+
+    @Benchmark
+    public double[] perCall() {
+        for (int i = 0; i < rows; i++) {
+            out[i] = AppModel.priceAfterPlan(base[i], InsuranceLevel.NORMAL, AppModel.PricingType.PRICE_REDUCTION);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] bulk() {
+        PricingEngine.priceAll(base, out, rows, InsuranceLevel.NORMAL, AppModel.PricingType.PRICE_REDUCTION);
+        return out;
+    }
+
+    @Benchmark
+    public int repriceAll() {
+        model.profile.insurance = (flip = !flip) ? InsuranceLevel.PREMIUM : InsuranceLevel.MINIMAL;
+        return model.repriceAll();
+    }
+}
@@ -0,0 +1,60 @@
+package smm.bench.jmh;
+
+import org.openjdk.jmh.annotations.*;
+import smm.model.AppModel;
+import smm.model.ModelSnapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ModelSnapshot save and load of a BenchData model ("rows" appointments and
+ * invoices, rows/2 history records), as at exit and at startup. The size of
+ * the saved file is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class SnapshotBench {
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private static final Map<String, Set<String>> SETS = Map.of("modules", Set.of("APPOINTMENTS", "PAYMENT"));
+
+    private AppModel model;
+    private Path saved, scratch;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        model = BenchData.model(rows, LocalDate.now(), 42);
+        saved = Files.createTempFile("smm-bench", ".bin");
+        scratch = Files.createTempFile("smm-bench", ".bin");
+        ModelSnapshot.save(model, SETS, saved);
+        System.out.printf("%n%,d bytes for %,d appointments%n", Files.size(saved), model.appointments.size());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(saved);
+        Files.deleteIfExists(scratch);
+    }
+
+    @Benchmark
+    public Path save() throws IOException {
+        ModelSnapshot.save(model, SETS, scratch);
+        return scratch;
+    }
+
+    @Benchmark
+    public ModelSnapshot.Contents load() throws IOException {
+        return ModelSnapshot.load(saved);
+    }
+}
@@ -5,20 +5,47 @@ import smm.view.AppFrame;
 import smm.view.NavigationEvent;
 import smm.view.pages.TimePage;
 
+import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class App {
+    /** Session state: snapshot saved at exit, plus the changes journaled since. */
+    private static final Path SNAPSHOT = Path.of("smm_snapshot.bin");
+    private static final Path JOURNAL = Path.of("smm_journal.bin");
+    /** Doctor catalog ("service;doctor;price" lines); the built-in one is used when absent. */
+    private static final Path DOCTORS = Path.of("doctors.csv");
+
     public static void main(String[] args) {
         System.setProperty("awt.useSystemAAFontSettings", "on");
         System.setProperty("swing.aatext", "true");
 
-        // Model + Controller
-        var model = new AppModel();
-        var controller = new Controller(model);
+        // Model + Controller (warm start from the last session's snapshot + journal)
+        var controller = openController();
+        var model = controller.getModel();
+        loadDoctors(controller);
+        // only a controller restored from the files journals to them; a fallback must not overwrite them
+        boolean backed = controller.getJournal() != null;
+        // Reminders also come due as wall-clock time passes (started with the UI)
+        var reminderTimer = new Timer(30_000, e -> controller.pollReminders());
+        // Saved on the EDT, where the model is changed (UI, queued time events, reminder timer)
+        Runnable saveSession = saveOnce(controller, reminderTimer);
+        if (backed) Runtime.getRuntime().addShutdownHook(new Thread(() -> runOnEdt(saveSession), "snapshot-save"));
 
         // Time Event System (Observer pattern)
-        var tes = new TimeEventSystem();
-        tes.addObserver(model); // model adapts when time advances
+        // Observers are queued on the EDT: the clock returns at once, the model
+        // (added first) updates before the Time page reads it, and Swing stays single-threaded.
+        var tes = new TimeEventSystem(TimeEventSystem.Dispatch.ASYNC, SwingUtilities::invokeLater);
+        tes.setCurrentDate(model.simulatedNow().toLocalDate()); // resume the simulated date
+        tes.addObserver(controller); // model adapts when time advances (journaled by the controller)
 
         // Show UI
         controller.enableUIView();
@@ -31,13 +58,89 @@ public class App {
         Toolkit.getDefaultToolkit().addAWTEventListener(event -> {
             if (event instanceof NavigationEvent ne) {
                 String target = ne.target;
-                frame.refreshAll();
-                frame.cards.show(frame.content, target);
+                frame.navigateTo(target);
                 frame.nav.setSelectedValue(target, true);
             }
         }, NavigationEvent.NAV_ID);
 
+        // Closing the window saves before exiting; other exits go through the hook
+        if (backed) frame.addWindowListener(new WindowAdapter() {
+            @Override public void windowClosing(WindowEvent e) { saveSession.run(); }
+        });
+        reminderTimer.start();
+
         // Initial refresh
         frame.refreshAll();
     }
+
+    /** Stops the reminder timer, checkpoints and closes the journal; later calls do nothing. */
+    private static Runnable saveOnce(Controller controller, Timer reminderTimer) {
+        AtomicBoolean done = new AtomicBoolean();
+        return () -> {
+            if (!done.compareAndSet(false, true)) return;
+            reminderTimer.stop();
+            try {
+                controller.checkpoint(SNAPSHOT);
+                controller.closeJournal();
+            } catch (IOException e) {
+                e.printStackTrace(); // the journal still holds the session's changes
+            }
+        };
+    }
+
+    /**
+     * Runs task on the EDT and waits for it. An exit called from the EDT (the
+     * pages' Exit buttons) holds the EDT until the hooks finish, so after a short
+     * wait the task runs on this thread instead, with the EDT stalled.
+     */
+    private static void runOnEdt(Runnable task) {
+        CountDownLatch ran = new CountDownLatch(1);
+        EventQueue.invokeLater(() -> {
+            try {
+                task.run();
+            } finally {
+                ran.countDown();
+            }
+        });
+        try {
+            if (ran.await(2, TimeUnit.SECONDS)) return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        task.run();
+    }
+
+    private static void loadDoctors(Controller controller) {
+        try {
+            controller.watchDoctors(DOCTORS); // edits to the file apply while the app runs
+        } catch (IOException e) {
+            e.printStackTrace(); // keep the built-in catalog
+        }
+    }
+
+    /**
+     * The last session's controller, or, if its files can't be read, a fresh one
+     * that is not backed by them (no journal, no checkpoint at exit). The
+     * unreadable files are moved aside as "*.bad" so the next start is clean.
+     */
+    private static Controller openController() {
+        try {
+            return Controller.restore(SNAPSHOT, JOURNAL, Path.of(""));
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace(); // unreadable snapshot or journal: run without them this session
+        }
+        moveAside(SNAPSHOT);
+        moveAside(JOURNAL);
+        return new Controller(new AppModel());
+    }
+
+    private static void moveAside(Path file) {
+        try {
+            if (Files.exists(file)) {
+                Files.move(file, file.resolveSibling(file.getFileName() + ".bad"), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            e.printStackTrace(); // left in place; the next start tries it again
+        }
+    }
 }
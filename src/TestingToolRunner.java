@@ -4,7 +4,11 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.BufferedReader;
 import java.io.FileReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
 
 import smm.controller.Controller;
 import smm.controller.ControllerInterface;
@@ -146,6 +150,146 @@ public class TestingToolRunner {
 
     }
 
+    /**
+     * Parallel variant of "executeTests", which stays the reference implementation.
+     * It reads the same test suite and writes the same "logs<reference>-<j>.txt" files, but every
+     * alternative path is replayed on its own controller so paths can run concurrently on a fork-join pool.
+     * @param controllers makes a fresh controller for one path, given a per-path temporary directory for its
+     *                    state_log*.txt side files (removed afterwards), e.g. {@code dir -> new Controller(new AppModel(), dir)}
+     * @param testingToolFolder the path to the folder where the test suites are stored
+     * @param reference writes tests and register logs with this reference, overwrites the previous tests generated with this reference.
+     * @param parallelism number of worker threads, or 0 to use every available processor
+     * @return The number of alternative paths that were executed, or 0 if there was a problem.
+     */
+    public static int executeTestsParallel(Function<Path, ? extends ControllerInterface> controllers,
+                                           String testingToolFolder, int reference, int parallelism) {
+        int numberPaths = preparePaths(testingToolFolder, reference);
+        if (numberPaths == 0) return 0;
+
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<Callable<Boolean>> tasks = new ArrayList<>();
+            for (int j = 0; j < numberPaths; j++) {
+                final int path = j;
+                tasks.add(() -> replayIsolated(controllers, testingToolFolder, reference, path));
+            }
+            for (Future<Boolean> result : pool.invokeAll(tasks)) {
+                if (!result.get()) return 0;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+            return 0;
+        } finally {
+            pool.shutdown();
+        }
+        return numberPaths;
+    }
+
+    /**
+     * Reads the number of alternative paths (the number in the first line of each test suite)
+     * and wipes the existing logs at this reference, as each path appends to its own log file.
+     * @return the number of paths, or 0 if there was a problem.
+     */
+    private static int preparePaths(String testingToolFolder, int reference) {
+        String firstPath = testingToolFolder + "paths" + reference + "-0.txt";
+        int numberPaths;
+        try(BufferedReader br = new BufferedReader(new FileReader(firstPath))) {
+            numberPaths = Integer.parseInt(br.readLine());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return 0;
+        }
+
+        for(int i = 0; i<numberPaths; i++) {
+            File file = new File(testingToolFolder + "logs" + reference + "-" + i + ".txt");
+            if (file.exists()) {
+                try (FileWriter writer = new FileWriter(file)) {
+                    writer.write(""); // Write an empty string to clear the content
+                } catch (IOException e) {
+                    System.err.println("An error occurred while clearing the file: " + e.getMessage());
+                    return 0;
+                }
+            }
+        }
+        return numberPaths;
+    }
+
+    /** Replays path "j" on a fresh controller whose state_log*.txt files live in a temporary directory. */
+    private static boolean replayIsolated(Function<Path, ? extends ControllerInterface> controllers,
+                                          String testingToolFolder, int reference, int j) throws IOException {
+        Path stateDir = Files.createTempDirectory("smm-state" + reference + "-" + j + "-");
+        try {
+            ControllerInterface controller = controllers.apply(stateDir);
+            controller.disableUIView();
+            try {
+                return replayPath(controller, testingToolFolder, reference, j);
+            } finally {
+                // our Controller writes its state logs behind; they must land before the directory goes
+                if (controller instanceof Controller c) c.flushStateLogs();
+            }
+        } finally {
+            try (var files = Files.list(stateDir)) {
+                for (Path f : (Iterable<Path>) files::iterator) Files.deleteIfExists(f);
+            }
+            Files.deleteIfExists(stateDir);
+        }
+    }
+
+    /** Replays one alternative path on "controller", appending a state to its log at every breakpoint. */
+    private static boolean replayPath(ControllerInterface controller, String testingToolFolder, int reference, int j) {
+        String path = testingToolFolder + "paths" + reference + "-" + j + ".txt";
+        String logPath = testingToolFolder + "logs" + reference + "-" + j + ".txt";
+        String line;
+        int stepCounter = 0;
+
+        try(BufferedReader br = new BufferedReader(new FileReader(path))) {
+            // Number of paths, undetectable transition rates, keyword "ACTIVATION"
+            br.readLine();
+            br.readLine();
+            br.readLine();
+
+            String activationLine = br.readLine().trim();
+            if (!br.readLine().trim().equals("DEACTIVATION")) {
+                System.out.println("Irregular pattern detected in your test suite, please contact Pierre Martou (teaching assistant).");
+            }
+            String deactivationLine = br.readLine().trim();
+            controller.activate(deactivationLine.split("-"), activationLine.split("-"));
+
+            while ((line = br.readLine()) != null) {
+                line = line.trim();
+
+                if (line.equals("ACTIVATION")) {
+                    activationLine = br.readLine().trim();
+                    if (!br.readLine().trim().equals("DEACTIVATION")) {
+                        System.out.println("Irregular pattern detected in your test suite, please contact Pierre Martou (teaching assistant).");
+                    }
+                    deactivationLine = br.readLine().trim();
+                    try {
+                        controller.activate(deactivationLine.split("-"), activationLine.split("-"));
+                    } catch (Exception e) {
+                        System.out.println("Error detected while executing the (de)activations of features.\n"
+                                + "If you believe a specific combination of features (e.g. transition of two specific features) caused this error, don't hesitate to report it on Inginious.");
+                        System.out.println("The features activated were: " + activationLine);
+                        System.out.println("The features deactivated were: " + deactivationLine);
+                        System.out.println("It occurred in: test reference " + reference + ", path number " + j + ", after " + stepCounter + " system verification(s).");
+                        return false;
+                    }
+                } else if (line.equals("BREAKPOINT")) {
+                    stepCounter++;
+                    TestingToolRunner.writeStateToFile(controller, logPath);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        return true;
+    }
+
     /**
      * The "activationsAtSpecificStep" method should not be modified.
      * This method fetches the (de)activation at the specified step, in the specific suite, for testing purposes.
@@ -249,6 +393,108 @@ public class TestingToolRunner {
         return discrepancies;
     }
 
+    /**
+     * Streaming variant of "verifyLogs" with the same discrepancy report.
+     * All path logs are read in lockstep, one ENDSTATE block at a time, so memory does not grow with the number of steps.
+     * Each state is reduced to a 64-bit fingerprint that matches the default "compareLogs" rule (same distinct lines,
+     * same length); "compareLogs" itself only runs when fingerprints differ. If you customise "compareLogs" to be
+     * stricter than that rule (e.g. order-sensitive), use "verifyLogs" instead.
+     * @param numberPaths an integer corresponding to the number of paths
+     * @param reference the reference of the logs to verify
+     * @return Discrepancies between logs if they exist, or a success message.
+     */
+    public static List<String> verifyLogsStreaming(String testingToolFolder, int reference, int numberPaths) {
+        List<String> discrepancies = new ArrayList<>();
+        List<BufferedReader> readers = new ArrayList<>();
+        try {
+            for (int i = 0; i<numberPaths; i++) {
+                readers.add(new BufferedReader(new FileReader(testingToolFolder + "logs" + reference + "-" + i + ".txt")));
+            }
+
+            String[] firstLog;
+            for (int i = 0; (firstLog = readNextState(readers.get(0))) != null; i++) {
+                long firstPrint = stateFingerprint(firstLog);
+                boolean reported = false;
+                for (int j = 1; j<numberPaths; j++) {
+                    String[] nextLog = readNextState(readers.get(j));
+                    if (nextLog == null) nextLog = new String[0]; // shorter log: every missing state is a mismatch
+                    // keep every reader on step i, even after this step's discrepancy is reported
+                    if (reported || stateFingerprint(nextLog) == firstPrint || !compareLogs(firstLog, nextLog)) continue;
+
+                    String newDiscrepancy = "\n ==================================================";
+                    newDiscrepancy += "\nReference "+reference+", at step " + i + ", between path 0 and alternative path "+j + ", logs are inconsistent. Logs are :\n";
+                    newDiscrepancy += Arrays.toString(firstLog) + "\n VS \n" + Arrays.toString(nextLog);
+                    newDiscrepancy += "\n --------------------------------------------------";
+                    newDiscrepancy += "\n These logs were created after the following transition: ";
+
+                    String[][] allActivations = activationsAtSpecificStep(i, testingToolFolder + "paths" + reference + "-0.txt");
+                    if (allActivations == null) {
+                        System.out.println("A problem occurred while searching for the (de)activations that caused an error in logs; please check by hand in the files.");
+                    }
+                    newDiscrepancy += "\n Activation of the features : " + Arrays.toString(allActivations[0]);
+                    newDiscrepancy += "\n Deactivation of the features : " + Arrays.toString(allActivations[1]);
+                    discrepancies.add(newDiscrepancy);
+                    reported = true;
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error while reading the logs from the written files.");
+            e.printStackTrace();
+        } finally {
+            for (BufferedReader br : readers) {
+                try { br.close(); } catch (IOException ignored) {}
+            }
+        }
+
+        if (discrepancies.isEmpty()) {
+            discrepancies.add("All logs are consistent between alternative execution paths. Congratulations.");
+        } else {
+            String lastElement = discrepancies.get(discrepancies.size() - 1);
+            lastElement += "\n ==================================================";
+            discrepancies.set(discrepancies.size() - 1, lastElement);
+        }
+        return discrepancies;
+    }
+
+    /** Reads the next ENDSTATE block like "readStatesFromFile" does, or returns null at the end of the file. */
+    private static String[] readNextState(BufferedReader br) throws IOException {
+        List<String> currentLogs = new ArrayList<>();
+        StringBuilder blockInLogs = new StringBuilder();
+        String line;
+        while ((line = br.readLine()) != null) {
+            line = line.trim();
+            if (line.equals("ENDSTATE")) {
+                return currentLogs.toArray(new String[0]);
+            } else if (line.equals("LINEMARKER")) {
+                currentLogs.add(blockInLogs.toString());
+                blockInLogs = new StringBuilder();
+            } else {
+                blockInLogs.append(line);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Order-independent 64-bit fingerprint of a state: a sum of mixed FNV-1a hashes over its distinct lines,
+     * combined with the line count. Equal under the default "compareLogs" rule implies equal fingerprints.
+     */
+    private static long stateFingerprint(String[] state) {
+        long sum = 0;
+        for (String line : new HashSet<>(Arrays.asList(state))) {
+            long h = 0xcbf29ce484222325L;
+            for (int k = 0; k < line.length(); k++) {
+                h ^= line.charAt(k);
+                h *= 0x100000001b3L;
+            }
+            // splitmix64 finaliser so that summing hashes does not cancel out structure
+            h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+            h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+            sum += h ^ (h >>> 31);
+        }
+        return sum * 31 + state.length;
+    }
+
     /**
      * The "readStatesFromFile" method should not be reimplemented nor modified.
      * It reads the logs from "filepath" and returns creates a list of all logs contained within.
@@ -381,6 +627,30 @@ public class TestingToolRunner {
         }
     }
 
+    /**
+     * Opt-in variant of "launchTestingTool": the paths are replayed concurrently by "executeTestsParallel",
+     * each on a fresh controller made by "controllers" (given the path's state-log directory).
+     * @param streamingCheck compare the logs with "verifyLogsStreaming" instead of "verifyLogs"
+     */
+    public static void launchTestingToolParallel(Function<Path, ? extends ControllerInterface> controllers, String testingToolFolder, String featureModelPath, boolean skipGeneration, int reference, boolean usingWindows, boolean streamingCheck) throws Exception {
+        if (!skipGeneration) {
+            boolean success = generateTests(featureModelPath, testingToolFolder, reference, usingWindows);
+            if (!success) {
+                System.out.println("Test generation failed.");
+                return;
+            }
+        }
+
+        int numberOfPaths = executeTestsParallel(controllers, testingToolFolder, reference, 0);
+
+        List<String> discrepancies = streamingCheck
+                ? verifyLogsStreaming(testingToolFolder, reference, numberOfPaths)
+                : verifyLogs(testingToolFolder, reference, numberOfPaths);
+        for(String line : discrepancies) {
+            System.out.println(line);
+        }
+    }
+
     public static void main(String[] args) throws Exception {
     ControllerInterface controller = new smm.controller.Controller();
 
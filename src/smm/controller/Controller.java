@@ -2,165 +2,119 @@ package smm.controller;
 
 import smm.model.*;
 import smm.view.AppFrame;
+import smm.view.AppFrame.Domain;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import smm.controller.MutationJournal.Op;
 
 /** Application controller that implements the provided ControllerInterface. */
-public class Controller implements ControllerInterface {
+public class Controller implements ControllerInterface, TimeObserver {
     private final AppModel model;
 
     // --- UI wiring ---
     private AppFrame view;           // lazily created in enableUIView()
     private boolean uiEnabled = false;
 
-    // --- “Feature model” known to the controller (names are UPPERCASE) ---
-    private static final Set<String> FEATURE_MODEL = Set.of(
-        // real features
-        "APPOINTMENTS","MEDICAL_HISTORY","PAYMENT","REMINDERS",
-        "APPOINTMENT_REMINDER","MEDICATION_REMINDER",
-        "INSURANCE_MINIMAL","INSURANCE_NORMAL","INSURANCE_PREMIUM",
-        "OUT_OF_POCKET","PRICE_REDUCTION","DEFERRED_PAYMENT",
-
-        // test-only/no-op features so activations don't diverge
-        "ADD_CONSULTATION","ADD_PRESCRIPTIONS","ADD_SURGERIES","ADD_TO_CALENDAR",
-        "BASIC_SEARCH","ADVANCED_SEARCH"
-    );
-
-    // Current on/off state (parent REMINDERS + both children start enabled)
-    private final Set<String> enabledModules = new HashSet<>(Set.of(
-        "APPOINTMENTS", "MEDICAL_HISTORY", "PAYMENT",
-        "REMINDERS", "APPOINTMENT_REMINDER", "MEDICATION_REMINDER"
-    ));
-
-    // NEW: keep explicit sets for insurance & pricing features
-    private final Set<String> activeInsurance = new HashSet<>(Set.of("INSURANCE_NORMAL"));
-    private final Set<String> activePricing   = new HashSet<>(Set.of("OUT_OF_POCKET"));
+    // --- Feature state: one bit per Feature (names are UPPERCASE) ---
+    // parent REMINDERS + both children start enabled; plan NORMAL / OUT_OF_POCKET
+    private long features = Feature.APPOINTMENTS.bit | Feature.MEDICAL_HISTORY.bit | Feature.PAYMENT.bit
+            | Feature.REMINDERS.bit | Feature.APPOINTMENT_REMINDER.bit | Feature.MEDICATION_REMINDER.bit
+            | Feature.INSURANCE_NORMAL.bit | Feature.OUT_OF_POCKET.bit;
+    private final Set<String> enabledModules = new ModuleView();
+    private final FeatureTransitions transitions = new FeatureTransitions(1024); // activate() memo
 
     // Selection used by pages
     private UUID selectedAppointmentId;
 
+    // --- doctor catalog (immutable registries, swapped whole by setDoctors or a file reload) ---
+    private final PriceCatalog doctors = new PriceCatalog(DoctorRegistry.builtIn());
+
     // --- unified log3 TES section (kept between writes) ---
     private final java.util.List<String> tesSection3 = new java.util.ArrayList<>();
 
+    // --- state_log*.txt side files, written off the calling thread ---
+    private final StateLogWriter logWriter;
+
+    // --- mutation journal (null = not journaling); "replaying" while it is read back ---
+    private MutationJournal journal;
+    private UUID journalEpoch;
+    private boolean replaying;
+
     public Controller() {
         this(new smm.model.AppModel());
     }
 
     public Controller(AppModel model) {
+        this(model, Path.of(""));
+    }
+
+    /** @param logDir directory for the state_log*.txt side files (default: working directory) */
+    public Controller(AppModel model, Path logDir) {
         this.model = model;
+        this.logWriter = new StateLogWriter(logDir);
         // Ensure model is consistent with our initial feature sets
         this.model.profile.insurance = InsuranceLevel.NORMAL;
         this.model.pricing = AppModel.PricingType.OUT_OF_POCKET;
+        this.model.setReminderGate(this::reminderFeatureOn);
     }
 
     public AppModel getModel() { return model; }
 
     public AppFrame getView() { return view; }
 
-    /* -----------------------------------------------------------
-       ControllerInterface methods
-       ----------------------------------------------------------- */
-
-    @Override
-    public int activate(String[] deactivations, String[] activations) {
-        // normalize + sort (determinism)
-        List<String> deact = new ArrayList<>();
-        if (deactivations != null) {
-            for (String s : deactivations) deact.add(normalize(s));
-        }
-        Collections.sort(deact);
-
-        List<String> act = new ArrayList<>();
-        if (activations != null) {
-            for (String s : activations) act.add(normalize(s));
-        }
-        Collections.sort(act);
+    /** Doctors, their services and base prices (the catalog as of this call). */
+    public DoctorRegistry getDoctors() { return doctors.get(); }
 
-        /* -------- UPDATE INTERNAL FEATURE SETS (order-independent) -------- */
+    /** Base price of a doctor in the current catalog; never blocks on a reload. */
+    public double doctorPrice(String doctor) { return doctors.price(doctor); }
 
-        // 1) DEACTIVATE
-        for (String f : deact) {
-            if (!FEATURE_MODEL.contains(f)) continue; // ignore unknown test toggles
+    /** Switches to another doctor catalog (e.g. one loaded from a file). */
+    public void setDoctors(DoctorRegistry registry) {
+        doctors.set(Objects.requireNonNull(registry, "registry"));
+        refreshView(Domain.DOCTORS);
+    }
 
-            if (isInsurance(f)) {
-                activeInsurance.remove(f);
-            } else if (isPricing(f)) {
-                activePricing.remove(f);
-            } else {
-                enabledModules.remove(f);
-            }
-        }
+    /** Loads the catalog from "file" (if present) and reloads it whenever the file changes. */
+    public void watchDoctors(Path file) throws IOException {
+        doctors.watch(file, () -> java.awt.EventQueue.invokeLater(() -> refreshView(Domain.DOCTORS)));
+    }
 
-        // 2) ACTIVATE
-        for (String f : act) {
-            if (!FEATURE_MODEL.contains(f)) continue; // ignore unknown test toggles
+    /** Catalog reload latency and swap figures. */
+    public PriceCatalog.Metrics getCatalogMetrics() { return doctors.metrics(); }
 
-            if (isInsurance(f)) {
-                activeInsurance.add(f);
-            } else if (isPricing(f)) {
-                activePricing.add(f);
-            } else {
-                enabledModules.add(f);
-            }
-        }
+    /* -----------------------------------------------------------
+       ControllerInterface methods
+       ----------------------------------------------------------- */
 
-        /* -------- DERIVE INSURANCE FROM activeInsurance --------
-           Priority: PREMIUM > NORMAL > MINIMAL
-         */
-        InsuranceLevel pendingIns;
-        if (activeInsurance.contains("INSURANCE_PREMIUM")) {
-            pendingIns = InsuranceLevel.PREMIUM;
-        } else if (activeInsurance.contains("INSURANCE_NORMAL")) {
-            pendingIns = InsuranceLevel.NORMAL;
-        } else if (activeInsurance.contains("INSURANCE_MINIMAL")) {
-            pendingIns = InsuranceLevel.MINIMAL;
-        } else {
-            // no insurance feature active → default to NORMAL
-            pendingIns = InsuranceLevel.NORMAL;
-            activeInsurance.clear();
-            activeInsurance.add("INSURANCE_NORMAL");
-        }
-
-        /* -------- DERIVE PRICING FROM activePricing --------
-           Priority: DEFERRED > PRICE_REDUCTION > OUT_OF_POCKET
+    @Override
+    public int activate(String[] deactivations, String[] activations) {
+        /* -------- UPDATE FEATURE STATE --------
+           order-independent: all deactivations, then all activations (unknown test
+           toggles have no bit); plan defaults and the REMINDERS invariant applied.
+           Generated suites repeat the same transitions, so results are memoized.
          */
-        AppModel.PricingType pendingPricing;
-        if (activePricing.contains("DEFERRED_PAYMENT")) {
-            pendingPricing = AppModel.PricingType.DEFERRED_PAYMENT;
-        } else if (activePricing.contains("PRICE_REDUCTION")) {
-            pendingPricing = AppModel.PricingType.PRICE_REDUCTION;
-        } else if (activePricing.contains("OUT_OF_POCKET")) {
-            pendingPricing = AppModel.PricingType.OUT_OF_POCKET;
-        } else {
-            // no pricing feature active → default to OUT_OF_POCKET
-            pendingPricing = AppModel.PricingType.OUT_OF_POCKET;
-            activePricing.clear();
-            activePricing.add("OUT_OF_POCKET");
-        }
+        long before = features;
+        long state = transitions.resolve(before, Feature.mask(deactivations), Feature.mask(activations));
+        InsuranceLevel pendingIns = FeatureTransitions.insurance(state);
+        AppModel.PricingType pendingPricing = FeatureTransitions.pricing(state);
 
         /* -------- Commit model -------- */
+        boolean planChanged = model.profile.insurance != pendingIns || model.pricing != pendingPricing;
         model.profile.insurance = pendingIns;
         model.pricing = pendingPricing;
+        if (planChanged && model.repriceAll() > 0) refreshView(Domain.INVOICES); // unpaid invoices follow the plan
 
-        /* -------- Parent/children invariant for REMINDERS -------- */
-        boolean parent = enabledModules.contains("REMINDERS");
-        boolean ar = enabledModules.contains("APPOINTMENT_REMINDER");
-        boolean mr = enabledModules.contains("MEDICATION_REMINDER");
-
-        if (!parent) { // parent OFF ⇒ children OFF
-            enabledModules.remove("APPOINTMENT_REMINDER");
-            enabledModules.remove("MEDICATION_REMINDER");
-        }
-        if (ar || mr) { // any child ON ⇒ parent ON
-            enabledModules.add("REMINDERS");
-        }
+        features = state;
+        if (((before ^ state) & Feature.MODULES) != 0) markLogsDirty(); // insurance/pricing changes are picked up by syncLogInputs()
+        if (journaling()) append(journal.record(Op.ACTIVATE).putStrings(deactivations).putStrings(activations));
 
-        if (uiEnabled && view != null) view.refreshAll();
+        refreshView(Domain.FEATURES);
         writeStateLog();
         writeStateLog1();
         writeStateLog3();
@@ -184,8 +138,36 @@ public class Controller implements ControllerInterface {
         };
     }
 
-    public boolean isModuleEnabled(String moduleKey) { return enabledModules.contains(moduleKey); }
-    public java.util.Set<String> getEnabledModules() { return java.util.Collections.unmodifiableSet(enabledModules); }
+    public boolean isModuleEnabled(String moduleKey) {
+        Feature f = Feature.named(moduleKey);
+        return f != null && f.group == Feature.Group.MODULE && on(f);
+    }
+
+    /** Hits and misses of activate()'s transition memo. */
+    public FeatureTransitions.Stats getTransitionCacheStats() { return transitions.stats(); }
+
+    /** Read-only live view of the enabled modules (by name). */
+    public java.util.Set<String> getEnabledModules() { return enabledModules; }
+
+    private boolean on(Feature f) { return (features & f.bit) != 0; }
+
+    /** The module bits of the feature state, as names; follows every later change. */
+    private final class ModuleView extends AbstractSet<String> {
+        @Override public boolean contains(Object o) { return o instanceof String s && isModuleEnabled(s); }
+        @Override public int size() { return Long.bitCount(features & Feature.MODULES); }
+        @Override public Iterator<String> iterator() {
+            return new Iterator<>() {
+                private long left = features & Feature.MODULES;
+                @Override public boolean hasNext() { return left != 0; }
+                @Override public String next() {
+                    if (left == 0) throw new NoSuchElementException();
+                    Feature f = Feature.lowest(left);
+                    left &= left - 1;
+                    return f.name();
+                }
+            };
+        }
+    }
 
     @Override
     public boolean enableUIView() {
@@ -193,6 +175,7 @@ public class Controller implements ControllerInterface {
         try {
             view = new AppFrame(this);
             uiEnabled = true;
+            markLogsDirty();
             view.setVisible(true);
             view.refreshAll();
             writeStateLog();
@@ -209,6 +192,7 @@ public class Controller implements ControllerInterface {
         if (!uiEnabled) return true;
         try {
             uiEnabled = false;
+            markLogsDirty();
             if (view != null) {
                 view.dispose();
                 view = null;
@@ -228,6 +212,80 @@ public class Controller implements ControllerInterface {
 
     @Override
     public String[] getStateAsLog() {
+        return stateLog().clone();
+    }
+
+    @Override
+    public String[] getStateAsLog1() {
+        return stateLog1().clone();
+    }
+
+    public String[] getStateAsLog3() {
+        return stateLog3().clone();
+    }
+
+    /* -----------------------------------------------------------
+       Log caches: each log is rebuilt only when one of its inputs
+       changed. Controller-owned state (features, UI flag, TES section)
+       marks the logs dirty directly; model state can also change
+       outside the controller, so its inputs are compared against the
+       values the caches were built from (all O(1) reads).
+       ----------------------------------------------------------- */
+    private static final int LOG = 1, LOG1 = 2, LOG3 = 4, ALL_LOGS = LOG | LOG1 | LOG3;
+    private int dirtyLogs = ALL_LOGS;
+    private String[] cachedLog, cachedLog1, cachedLog3;
+
+    private String seenName;
+    private InsuranceLevel seenInsurance;
+    private AppModel.PricingType seenPricing;
+    private int seenAppointments = -1, seenHistory = -1, seenInvoices = -1, seenUnpaid = -1, seenReminders = -1;
+
+    private void markLogsDirty() { dirtyLogs = ALL_LOGS; }
+
+    private void syncLogInputs() {
+        if (model.profile.name != seenName) {
+            seenName = model.profile.name;
+            dirtyLogs |= LOG | LOG3;
+        }
+        if (model.profile.insurance != seenInsurance) {
+            seenInsurance = model.profile.insurance;
+            dirtyLogs |= ALL_LOGS;
+        }
+        if (model.pricing != seenPricing) {
+            seenPricing = model.pricing;
+            dirtyLogs |= LOG | LOG3;
+        }
+        int appts = model.appointments.size(), hist = model.history.size(), invs = model.invoices.size();
+        int unpaid = model.invoices.unpaidCount(), rem = model.enabledReminderCount();
+        if (appts != seenAppointments || hist != seenHistory || invs != seenInvoices || rem != seenReminders) {
+            dirtyLogs |= LOG | LOG3;
+        }
+        if (unpaid != seenUnpaid) {
+            // log1 only shows whether anything is unpaid
+            dirtyLogs |= (unpaid > 0) != (seenUnpaid > 0) ? ALL_LOGS : LOG | LOG3;
+        }
+        seenAppointments = appts; seenHistory = hist; seenInvoices = invs; seenUnpaid = unpaid; seenReminders = rem;
+    }
+
+    private String[] stateLog() {
+        syncLogInputs();
+        if ((dirtyLogs & LOG) != 0) { cachedLog = buildStateLog(); dirtyLogs &= ~LOG; }
+        return cachedLog;
+    }
+
+    private String[] stateLog1() {
+        syncLogInputs();
+        if ((dirtyLogs & LOG1) != 0) { cachedLog1 = buildStateLog1(); dirtyLogs &= ~LOG1; }
+        return cachedLog1;
+    }
+
+    private String[] stateLog3() {
+        syncLogInputs();
+        if ((dirtyLogs & LOG3) != 0) { cachedLog3 = buildStateLog3(); dirtyLogs &= ~LOG3; }
+        return cachedLog3;
+    }
+
+    private String[] buildStateLog() {
         List<String> lines = new ArrayList<>();
         lines.add("uiEnabled:" + uiEnabled);
         lines.add("user:" + model.profile.name);
@@ -236,26 +294,25 @@ public class Controller implements ControllerInterface {
 
         // Parent modules
         for (String m : List.of("APPOINTMENTS", "MEDICAL_HISTORY", "PAYMENT", "REMINDERS")) {
-            lines.add("module:" + m + "=" + (enabledModules.contains(m) ? "ON" : "OFF"));
+            lines.add("module:" + m + "=" + (isModuleEnabled(m) ? "ON" : "OFF"));
         }
 
         // Sub-features of Reminders
-        lines.add("module:APPOINTMENT_REMINDER=" + (enabledModules.contains("APPOINTMENT_REMINDER") ? "ON" : "OFF"));
-        lines.add("module:MEDICATION_REMINDER=" + (enabledModules.contains("MEDICATION_REMINDER") ? "ON" : "OFF"));
+        lines.add("module:APPOINTMENT_REMINDER=" + (on(Feature.APPOINTMENT_REMINDER) ? "ON" : "OFF"));
+        lines.add("module:MEDICATION_REMINDER=" + (on(Feature.MEDICATION_REMINDER) ? "ON" : "OFF"));
 
         // Aggregated info
-        long unpaid = model.invoices.stream().filter(i -> !i.paid).count();
+        long unpaid = model.invoices.unpaidCount();
         lines.add("appointments:count=" + model.appointments.size());
         lines.add("history:count=" + model.history.size());
         lines.add("invoices:total=" + model.invoices.size());
         lines.add("invoices:unpaid=" + unpaid);
-        lines.add("reminders:enabled=" + model.reminders.stream().filter(r -> r.enabled).count());
+        lines.add("reminders:enabled=" + model.enabledReminderCount());
         lines.add("policy:" + model.currentPolicy());
         return lines.toArray(new String[0]);
     }
 
-    @Override
-    public String[] getStateAsLog1() {
+    private String[] buildStateLog1() {
         List<String> lines = new ArrayList<>();
         lines.add("window mainWindow");
         lines.add("label userName mainWindow-TopLeft");
@@ -267,24 +324,24 @@ public class Controller implements ControllerInterface {
             case PREMIUM -> lines.add("label premiumActive mainWindow-BottomRight");
         }
 
-        if (enabledModules.contains("APPOINTMENTS")) {
+        if (on(Feature.APPOINTMENTS)) {
             lines.add("buttonMedium appointments mainWindow-Center");
             lines.add("window appointmentsList");
             lines.add("buttonSmall newAppointment mainWindow-BottomLeft");
         }
-        if (enabledModules.contains("MEDICAL_HISTORY")) {
+        if (on(Feature.MEDICAL_HISTORY)) {
             lines.add("buttonMedium history mainWindow-LeftPanel");
             lines.add("window medicalHistory");
         }
-        if (enabledModules.contains("PAYMENT")) {
+        if (on(Feature.PAYMENT)) {
             lines.add("buttonMedium payment mainWindow-RightPanel");
             lines.add("window invoicesList");
         }
-        if (enabledModules.contains("REMINDERS")) {
+        if (on(Feature.REMINDERS)) {
             lines.add("buttonSmall reminders mainWindow-TopCenter");
             lines.add("window remindersDashboard");
         }
-        if (model.invoices.stream().anyMatch(i -> !i.paid)) {
+        if (model.invoices.hasUnpaid()) {
             lines.add("icon warning unpaidInvoices mainWindow-TopRight");
         }
         lines.add("buttonSmall logout mainWindow-TopRight");
@@ -292,7 +349,7 @@ public class Controller implements ControllerInterface {
     }
 
     /* ---------------- unified log3 ---------------- */
-    public String[] getStateAsLog3() {
+    private String[] buildStateLog3() {
         List<String> lines = new ArrayList<>();
 
         lines.add("ui enabled=" + uiEnabled);
@@ -302,21 +359,21 @@ public class Controller implements ControllerInterface {
         lines.add("pricing current=" + model.currentPricing());
 
         // Main features
-        lines.add("feature APPOINTMENTS="    + (enabledModules.contains("APPOINTMENTS")    ? "ON" : "OFF"));
-        lines.add("feature MEDICAL_HISTORY=" + (enabledModules.contains("MEDICAL_HISTORY") ? "ON" : "OFF"));
-        lines.add("feature PAYMENT="         + (enabledModules.contains("PAYMENT")         ? "ON" : "OFF"));
-        lines.add("feature REMINDERS="       + (enabledModules.contains("REMINDERS")       ? "ON" : "OFF"));
+        lines.add("feature APPOINTMENTS="    + (on(Feature.APPOINTMENTS)    ? "ON" : "OFF"));
+        lines.add("feature MEDICAL_HISTORY=" + (on(Feature.MEDICAL_HISTORY) ? "ON" : "OFF"));
+        lines.add("feature PAYMENT="         + (on(Feature.PAYMENT)         ? "ON" : "OFF"));
+        lines.add("feature REMINDERS="       + (on(Feature.REMINDERS)       ? "ON" : "OFF"));
 
         // Sub-features
-        lines.add("feature APPOINTMENT_REMINDER=" + (enabledModules.contains("APPOINTMENT_REMINDER") ? "ON" : "OFF"));
-        lines.add("feature MEDICATION_REMINDER="  + (enabledModules.contains("MEDICATION_REMINDER")  ? "ON" : "OFF"));
+        lines.add("feature APPOINTMENT_REMINDER=" + (on(Feature.APPOINTMENT_REMINDER) ? "ON" : "OFF"));
+        lines.add("feature MEDICATION_REMINDER="  + (on(Feature.MEDICATION_REMINDER)  ? "ON" : "OFF"));
 
-        long unpaid = model.invoices.stream().filter(i -> !i.paid).count();
+        long unpaid = model.invoices.unpaidCount();
         lines.add("count appointments=" + model.appointments.size());
         lines.add("count history=" + model.history.size());
         lines.add("count invoices=" + model.invoices.size());
         lines.add("count invoices_unpaid=" + unpaid);
-        lines.add("count reminders_enabled=" + model.reminders.stream().filter(r -> r.enabled).count());
+        lines.add("count reminders_enabled=" + model.enabledReminderCount());
 
         lines.add("window mainWindow");
         lines.add("label userName mainWindow-TopLeft");
@@ -328,20 +385,20 @@ public class Controller implements ControllerInterface {
             case PREMIUM -> lines.add("label premiumActive mainWindow-BottomRight");
         }
 
-        if (enabledModules.contains("APPOINTMENTS")) {
+        if (on(Feature.APPOINTMENTS)) {
             lines.add("buttonMedium appointments mainWindow-Center");
             lines.add("window appointmentsList");
             lines.add("buttonSmall newAppointment mainWindow-BottomLeft");
         }
-        if (enabledModules.contains("MEDICAL_HISTORY")) {
+        if (on(Feature.MEDICAL_HISTORY)) {
             lines.add("buttonMedium history mainWindow-LeftPanel");
             lines.add("window medicalHistory");
         }
-        if (enabledModules.contains("PAYMENT")) {
+        if (on(Feature.PAYMENT)) {
             lines.add("buttonMedium payment mainWindow-RightPanel");
             lines.add("window invoicesList");
         }
-        if (enabledModules.contains("REMINDERS")) {
+        if (on(Feature.REMINDERS)) {
             lines.add("buttonSmall reminders mainWindow-TopCenter");
             lines.add("window remindersDashboard");
         }
@@ -352,14 +409,199 @@ public class Controller implements ControllerInterface {
     }
 
     private void writeStateLog3() {
-        try (FileWriter fw = new FileWriter("state_log3.txt", false)) {
-            for (String line : getStateAsLog3()) fw.write(line + System.lineSeparator());
-        } catch (IOException e) { e.printStackTrace(); }
+        if (replaying) return;
+        logWriter.submit("state_log3.txt", stateLog3());
+    }
+
+    /** Blocks until the state_log*.txt files reflect every change made so far. */
+    public void flushStateLogs() {
+        logWriter.flush();
+    }
+
+    /* ---------------- Snapshot persistence ---------------- */
+
+    /** Saves the model and the feature sets to a binary snapshot (see ModelSnapshot). */
+    public void saveSnapshot(Path file) throws IOException {
+        saveSnapshot(file, null);
+    }
+
+    /** @param epoch journal the snapshot is followed by (null: none, restore starts a new one) */
+    private void saveSnapshot(Path file, UUID epoch) throws IOException {
+        Map<String, Collection<String>> sets = new LinkedHashMap<>();
+        sets.put("modules", names(features & Feature.MODULES));
+        sets.put("insurance", names(features & Feature.INSURANCE));
+        sets.put("pricing", names(features & Feature.PRICING));
+        sets.put("tes", List.copyOf(tesSection3)); // last time advance, shown in log3
+        if (epoch != null) sets.put("journal", Set.of(epoch.toString()));
+        ModelSnapshot.save(model, sets, file);
+    }
+
+    /** A controller over the model and feature sets saved by {@link #saveSnapshot(Path)}. */
+    public static Controller fromSnapshot(Path file, Path logDir) throws IOException {
+        ModelSnapshot.Contents s = ModelSnapshot.load(file);
+        InsuranceLevel insurance = s.model().profile.insurance;
+        AppModel.PricingType pricing = s.model().pricing;
+        Controller c = new Controller(s.model(), logDir); // resets insurance/pricing: put them back
+        c.model.profile.insurance = insurance;
+        c.model.pricing = pricing;
+        c.features = restoreGroup(c.features, Feature.MODULES, s.sets().get("modules"));
+        c.features = restoreGroup(c.features, Feature.INSURANCE, s.sets().get("insurance"));
+        c.features = restoreGroup(c.features, Feature.PRICING, s.sets().get("pricing"));
+        Set<String> tes = s.sets().get("tes");
+        if (tes != null) c.tesSection3.addAll(tes);
+        Set<String> epoch = s.sets().get("journal");
+        if (epoch != null && epoch.size() == 1) c.journalEpoch = UUID.fromString(epoch.iterator().next());
+        c.markLogsDirty();
+        return c;
+    }
+
+    /**
+     * The state at the last session's end: the snapshot (if any) plus the
+     * mutations journaled after it. Further accepted mutations are appended
+     * to the journal until {@link #closeJournal()}.
+     */
+    public static Controller restore(Path snapshotFile, Path journalFile, Path logDir) throws IOException {
+        Controller c = Files.exists(snapshotFile) ? fromSnapshot(snapshotFile, logDir)
+                                                   : new Controller(new AppModel(), logDir);
+        if (c.journalEpoch == null) {
+            // fresh start (random demo ids) or a snapshot without a journal: save the base the journal follows
+            c.journalEpoch = UUID.randomUUID();
+            c.saveSnapshot(snapshotFile, c.journalEpoch);
+        }
+        c.replaying = true;
+        try {
+            c.journal = MutationJournal.open(journalFile, c.journalEpoch, c::replay);
+        } finally {
+            c.replaying = false;
+        }
+        c.markLogsDirty();
+        return c;
+    }
+
+    /**
+     * Saves a snapshot and empties the journal, which it now contains.
+     * Call it from the thread that makes the changes (or once they stopped).
+     */
+    public void checkpoint(Path snapshotFile) throws IOException {
+        UUID next = UUID.randomUUID();
+        saveSnapshot(snapshotFile, next);
+        journalEpoch = next;
+        if (journal != null) journal.reset(next);
+    }
+
+    /** Writes out the journaled mutations and stops journaling. */
+    public void closeJournal() throws IOException {
+        if (journal == null) return;
+        try {
+            journal.close();
+        } finally {
+            journal = null;
+        }
+    }
+
+    public MutationJournal getJournal() { return journal; }
+
+    private boolean journaling() { return journal != null && !replaying; }
+
+    private void append(MutationJournal.Record r) {
+        try {
+            journal.append(r);
+        } catch (IOException e) {
+            e.printStackTrace(); // the change stands; only its durability is lost
+        }
+    }
+
+    /** Re-applies one journaled mutation (views and state logs are left alone). */
+    private void replay(Op op, MutationJournal.In in) {
+        switch (op) {
+            case ACTIVATE -> activate(in.getStrings(), in.getStrings());
+            case BOOKING -> {
+                Appointment a = new Appointment(in.getUuid(), in.getDate(), in.getTime(),
+                        in.getString(), in.getString(), in.getString(), in.getString(), in.getString(), in.getString(),
+                        in.getDouble());
+                boolean addToCalendar = in.getBoolean(), payNow = in.getBoolean();
+                model.createAppointment(a, addToCalendar, payNow, in.getDate(), in.getUuid(), in.getUuid());
+            }
+            case ADD_HISTORY -> model.history.add(new HistoryRecord(in.getDate(), in.getString(), in.getString()));
+            case PAY_INVOICE -> payInvoice(in.getUuid());
+            case SET_REMINDER_ENABLED -> setReminderEnabled(in.getUuid(), in.getBoolean());
+            case SET_INSURANCE -> setInsurance(in.getEnum(InsuranceLevel.class));
+            case UPDATE_PROFILE -> updateUserProfile(in.getString(), in.getBoolean(), in.getBoolean(),
+                    in.getBoolean(), in.getBoolean());
+            case ADD_REMINDER -> {
+                Reminder r = new Reminder(in.getUuid(), in.getString(), in.getString(), in.getDateTime());
+                r.enabled = in.getBoolean();
+                addReminder(r);
+            }
+            case SET_NOTIFICATIONS -> setNotificationPrefs(in.getBoolean(), in.getBoolean(), in.getBoolean());
+            case SET_TWO_FA -> setTwoFA(in.getBoolean());
+            case BOOKINGS -> {
+                LocalDate today = in.getDate();
+                int n = in.getInt();
+                List<BookingRequest> batch = new ArrayList<>(n);
+                UUID[] ids = new UUID[n * 3];
+                for (int i = 0; i < n; i++) {
+                    batch.add(new BookingRequest(in.getDate(), in.getTime(), in.getString(), in.getString(),
+                            in.getString(), in.getString(), in.getString(), in.getString(),
+                            in.getDouble(), in.getBoolean(), in.getBoolean()));
+                    ids[3 * i] = in.getUuid();
+                    ids[3 * i + 1] = in.getUuid();
+                    ids[3 * i + 2] = in.getUuid();
+                }
+                model.createAppointments(batch, today, ids);
+            }
+            case TIME_ADVANCED -> {
+                TimeEvent event = new TimeEvent(in.getDate(), in.getDate(), List.of(in.getStrings()));
+                model.onTimeAdvanced(event);
+                logTESAdvance3(event, List.of(in.getStrings()));
+            }
+            case REMOVE_APPOINTMENT -> removeAppointment(in.getUuid());
+            case PAY_APPOINTMENT -> model.payAppointment(in.getUuid(), in.getDate(), in.getUuid());
+            case RESCHEDULE -> {
+                Appointment edited = new Appointment(in.getUuid(), in.getDate(), in.getTime(),
+                        in.getString(), in.getString(), in.getString(), in.getString(), in.getString(), in.getString(),
+                        in.getDouble());
+                model.rescheduleAppointment(edited, in.getBoolean()); // was free when it was made
+            }
+            case UPDATE_CONTACT -> updateContact(in.getString(), in.getString(), in.getString());
+        }
+    }
+
+    private static TreeSet<String> names(long mask) {
+        TreeSet<String> out = new TreeSet<>();
+        for (long m = mask; m != 0; m &= m - 1) out.add(Feature.lowest(m).name());
+        return out;
+    }
+
+    /** "state" with the bits of one feature group replaced by the saved names. */
+    private static long restoreGroup(long state, long group, Set<String> saved) {
+        if (saved == null) return state; // older snapshot: keep the defaults
+        state &= ~group;
+        for (String name : saved) {
+            Feature f = Feature.named(name);
+            if (f != null && (f.bit & group) != 0) state |= f.bit;
+        }
+        return state;
     }
 
     /* ---------------- Remaining API methods unchanged ---------------- */
 
-    public void logTESAdvance3(TimeEvent event, java.util.List<String> triggers) {
+    /** The TES advanced the simulated clock: applies it to the model and journals it. */
+    @Override
+    public void onTimeAdvanced(TimeEvent event) {
+        model.onTimeAdvanced(event);
+        String[] events = event.events.toArray(new String[0]);
+        if (journaling()) {
+            // the events twice: the second list is the triggers logTESAdvance3 reports
+            append(journal.record(Op.TIME_ADVANCED).putDate(event.oldDate).putDate(event.newDate)
+                    .putStrings(events).putStrings(events));
+        }
+        refreshView(Domain.APPOINTMENTS, Domain.HISTORY, Domain.REMINDERS);
+        logTESAdvance3(event, event.events);
+    }
+
+    private void logTESAdvance3(TimeEvent event, java.util.List<String> triggers) {
+        markLogsDirty();
         tesSection3.clear();
         tesSection3.add("tes advanced from=" + event.oldDate + " to=" + event.newDate);
         for (String s : triggers) {
@@ -376,66 +618,244 @@ public class Controller implements ControllerInterface {
 
     public void setInsurance(InsuranceLevel lvl) {
         // keep sets + model in sync
-        activeInsurance.clear();
-        switch (lvl) {
-            case MINIMAL -> activeInsurance.add("INSURANCE_MINIMAL");
-            case NORMAL  -> activeInsurance.add("INSURANCE_NORMAL");
-            case PREMIUM -> activeInsurance.add("INSURANCE_PREMIUM");
-        }
+        features = (features & ~Feature.INSURANCE) | switch (lvl) {
+            case MINIMAL -> Feature.INSURANCE_MINIMAL.bit;
+            case NORMAL  -> Feature.INSURANCE_NORMAL.bit;
+            case PREMIUM -> Feature.INSURANCE_PREMIUM.bit;
+        };
+        boolean planChanged = model.profile.insurance != lvl;
         model.profile.insurance = lvl;
-        if (uiEnabled && view != null) view.refreshAll();
+        if (journaling()) append(journal.record(Op.SET_INSURANCE).putEnum(lvl));
+        if (planChanged && model.repriceAll() > 0) refreshView(Domain.INVOICES);
+        refreshView(Domain.FEATURES);
         writeStateLog3();
     }
 
+    /** Books unconditionally, even over an existing booking; see {@link #tryBooking}. */
     public Appointment createBooking(LocalDate date, LocalTime time, String type, String service,
                                      String doctor, String center, String room, String equip,
                                      double basePrice, boolean addToCalendar, boolean payNow) {
-        Appointment a = model.createAppointment(
-            new Appointment(date, time, type, service, doctor, center, room, equip, basePrice),
-            addToCalendar, payNow
-        );
-        if (uiEnabled && view != null) view.refreshAll();
+        return book(new Appointment(date, time, type, service, doctor, center, room, equip, basePrice),
+                addToCalendar, payNow);
+    }
+
+    /**
+     * Books only if the doctor (and the equipment at that center, if any) is free
+     * for the slot; otherwise nothing changes and the result lists the clashes.
+     */
+    public BookingResult tryBooking(LocalDate date, LocalTime time, String type, String service,
+                                    String doctor, String center, String room, String equip,
+                                    double basePrice, boolean addToCalendar, boolean payNow) {
+        Appointment a = new Appointment(date, time, type, service, doctor, center, room, equip, basePrice);
+        List<BookingConflict> conflicts = model.appointments.conflicts(a);
+        if (!conflicts.isEmpty()) return BookingResult.rejected(conflicts);
+        return BookingResult.booked(book(a, addToCalendar, payNow));
+    }
+
+    /**
+     * Changes a booked appointment to the given fields if the doctor (and the
+     * equipment at that center, if any) is free for the new slot; otherwise
+     * nothing changes and the result lists the clashes.
+     * @throws IllegalArgumentException if no appointment has that id
+     */
+    public BookingResult rescheduleAppointment(UUID id, LocalDate date, LocalTime time, String type, String service,
+                                               String doctor, String center, String room, String equip,
+                                               double price, boolean paid) {
+        if (model.appointments.get(id) == null) throw new IllegalArgumentException("unknown appointment " + id);
+        Appointment edited = new Appointment(id, date, time, type, service, doctor, center, room, equip, price);
+        List<BookingConflict> conflicts = model.appointments.conflicts(edited);
+        if (!conflicts.isEmpty()) return BookingResult.rejected(conflicts);
+        Appointment a = model.rescheduleAppointment(edited, paid);
+        if (journaling()) {
+            append(journal.record(Op.RESCHEDULE).putUuid(id).putDate(date).putTime(time)
+                    .putString(type).putString(service).putString(doctor).putString(center)
+                    .putString(room).putString(equip).putDouble(price).putBoolean(paid));
+        }
+        refreshView(Domain.APPOINTMENTS);
+        writeStateLog3();
+        return BookingResult.booked(a);
+    }
+
+    /** Cancels an appointment and drops its invoices; returns it, or null if unknown. */
+    public Appointment removeAppointment(UUID id) {
+        Appointment a = model.removeAppointment(id);
+        if (journaling()) append(journal.record(Op.REMOVE_APPOINTMENT).putUuid(id));
+        refreshView(Domain.APPOINTMENTS, Domain.INVOICES);
+        writeStateLog3();
+        return a;
+    }
+
+    /**
+     * Pays an appointment now: its unpaid invoice, or a new paid one at the plan price.
+     * @return the invoice paid, or null if the appointment is unknown or already paid
+     */
+    public Invoice payAppointment(UUID id) {
+        LocalDate today = LocalDate.now();
+        UUID invoiceId = UUID.randomUUID();
+        Invoice inv = model.payAppointment(id, today, invoiceId);
+        if (inv == null) return null;
+        if (journaling()) append(journal.record(Op.PAY_APPOINTMENT).putUuid(id).putDate(today).putUuid(invoiceId));
+        refreshView(Domain.APPOINTMENTS, Domain.INVOICES);
+        writeStateLog3();
+        return inv;
+    }
+
+    private Appointment book(Appointment a, boolean addToCalendar, boolean payNow) {
+        // generated ids and today's date are journaled so a replay books the very same objects
+        LocalDate today = LocalDate.now();
+        UUID invoiceId = UUID.randomUUID(), reminderId = UUID.randomUUID();
+        model.createAppointment(a, addToCalendar, payNow, today, invoiceId, reminderId);
+        if (journaling()) {
+            append(journal.record(Op.BOOKING).putUuid(a.id).putDate(a.date).putTime(a.time)
+                    .putString(a.type).putString(a.service).putString(a.doctor).putString(a.medicalCenter)
+                    .putString(a.roomType).putString(a.equipment).putDouble(a.price)
+                    .putBoolean(addToCalendar).putBoolean(payNow)
+                    .putDate(today).putUuid(invoiceId).putUuid(reminderId));
+        }
+        refreshView(Domain.APPOINTMENTS, Domain.INVOICES, Domain.REMINDERS);
         writeStateLog3();
         return a;
     }
 
+    /**
+     * Books a batch (e.g. a clinic's imported schedule). Every request is checked
+     * first and nothing is booked if one is invalid. Like tryBooking, a request
+     * whose doctor or equipment is taken, by the schedule or by an earlier
+     * request of the batch, is rejected with its clashes; the others are priced
+     * in one pass and the view and state log are updated once, not once per booking.
+     * @return one result per request, in order
+     * @throws IllegalArgumentException naming the first invalid request
+     */
+    public List<BookingResult> createBookings(Collection<BookingRequest> requests) {
+        List<BookingRequest> batch = new ArrayList<>(requests);
+        for (int i = 0; i < batch.size(); i++) {
+            BookingRequest r = batch.get(i);
+            String problem = r == null ? "missing" : r.problem();
+            if (problem != null) throw new IllegalArgumentException("booking #" + i + ": " + problem);
+        }
+        if (batch.isEmpty()) return List.of();
+
+        List<Appointment> candidates = new ArrayList<>(batch.size());
+        for (BookingRequest r : batch) {
+            candidates.add(new Appointment(UUID.randomUUID(), r.date(), r.time(), r.type(), r.service(),
+                    r.doctor(), r.center(), r.room(), r.equipment(), r.basePrice()));
+        }
+        List<List<BookingConflict>> conflicts = model.appointments.conflicts(candidates);
+        List<BookingRequest> accepted = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (conflicts.get(i).isEmpty()) accepted.add(batch.get(i));
+        }
+
+        List<Appointment> booked = List.of();
+        if (!accepted.isEmpty()) {
+            LocalDate today = LocalDate.now();
+            UUID[] ids = new UUID[accepted.size() * 3];
+            for (int i = 0, k = 0; i < batch.size(); i++) {
+                if (!conflicts.get(i).isEmpty()) continue;
+                ids[3 * k] = candidates.get(i).id;
+                ids[3 * k + 1] = UUID.randomUUID();
+                if (accepted.get(k).addToCalendar()) ids[3 * k + 2] = UUID.randomUUID();
+                k++;
+            }
+            booked = model.createAppointments(accepted, today, ids);
+            if (journaling()) {
+                MutationJournal.Record rec = journal.record(Op.BOOKINGS).putDate(today).putInt(accepted.size());
+                for (int i = 0; i < accepted.size(); i++) {
+                    BookingRequest r = accepted.get(i);
+                    rec.putDate(r.date()).putTime(r.time()).putString(r.type()).putString(r.service())
+                       .putString(r.doctor()).putString(r.center()).putString(r.room()).putString(r.equipment())
+                       .putDouble(r.basePrice()).putBoolean(r.addToCalendar()).putBoolean(r.payNow())
+                       .putUuid(ids[3 * i]).putUuid(ids[3 * i + 1]).putUuid(ids[3 * i + 2]);
+                }
+                append(rec);
+            }
+            refreshView(Domain.APPOINTMENTS, Domain.INVOICES, Domain.REMINDERS);
+            writeStateLog3();
+        }
+        List<BookingResult> results = new ArrayList<>(batch.size());
+        for (int i = 0, k = 0; i < batch.size(); i++) {
+            results.add(conflicts.get(i).isEmpty() ? BookingResult.booked(booked.get(k++))
+                                                   : BookingResult.rejected(conflicts.get(i)));
+        }
+        return results;
+    }
+
     public void addHistory(String kind, String details) {
-        model.history.add(new HistoryRecord(LocalDate.now(), kind, details));
-        if (uiEnabled && view != null) view.refreshAll();
+        LocalDate today = LocalDate.now();
+        model.history.add(new HistoryRecord(today, kind, details));
+        if (journaling()) append(journal.record(Op.ADD_HISTORY).putDate(today).putString(kind).putString(details));
+        refreshView(Domain.HISTORY);
         writeStateLog3();
     }
 
     public void payInvoice(UUID invoiceId) {
         model.markInvoicePaid(invoiceId);
-        if (uiEnabled && view != null) view.refreshAll();
+        if (journaling()) append(journal.record(Op.PAY_INVOICE).putUuid(invoiceId));
+        refreshView(Domain.INVOICES);
         writeStateLog3();
     }
 
     public void setReminderEnabled(UUID id, boolean enabled) {
-        model.reminders.stream().filter(r -> r.id.equals(id)).findFirst().ifPresent(r -> r.enabled = enabled);
-        if (uiEnabled && view != null) view.refreshAll();
+        model.setReminderEnabled(id, enabled);
+        if (journaling()) append(journal.record(Op.SET_REMINDER_ENABLED).putUuid(id).putBoolean(enabled));
+        refreshView(Domain.REMINDERS);
         writeStateLog3();
     }
 
+    public void addReminder(Reminder r) {
+        model.addReminder(r);
+        if (journaling()) {
+            append(journal.record(Op.ADD_REMINDER).putUuid(r.id).putString(r.type).putString(r.text)
+                    .putDateTime(r.when).putBoolean(r.enabled));
+        }
+        refreshView(Domain.REMINDERS);
+        writeStateLog3();
+    }
+
+    /** Fires reminders due on the simulated clock (called periodically by the UI). */
+    public void pollReminders() {
+        if (!model.fireDueReminders().isEmpty()) refreshView(Domain.REMINDERS);
+    }
+
+    /** A reminder may fire only while REMINDERS and its sub-feature are on. */
+    private boolean reminderFeatureOn(Reminder r) {
+        if (!on(Feature.REMINDERS)) return false;
+        return switch (Objects.toString(r.type, "").toLowerCase()) {
+            case "appointment" -> on(Feature.APPOINTMENT_REMINDER);
+            case "medication"  -> on(Feature.MEDICATION_REMINDER);
+            default -> true;
+        };
+    }
+
     public void setNotificationPrefs(boolean email, boolean sms, boolean inApp) {
         model.profile.notifEmail = email;
         model.profile.notifSMS = sms;
         model.profile.notifInApp = inApp;
-        if (uiEnabled && view != null) view.refreshAll();
+        if (journaling()) append(journal.record(Op.SET_NOTIFICATIONS).putBoolean(email).putBoolean(sms).putBoolean(inApp));
+        refreshView(Domain.PROFILE);
+        writeStateLog3();
+    }
+
+    public void updateContact(String name, String email, String phone) {
+        model.profile.name = name;
+        model.profile.email = email;
+        model.profile.phoneNumber = phone;
+        if (journaling()) append(journal.record(Op.UPDATE_CONTACT).putString(name).putString(email).putString(phone));
+        refreshView(Domain.PROFILE);
         writeStateLog3();
     }
 
     public void setTwoFA(boolean enable) {
         model.profile.twoFA = enable;
-        if (uiEnabled && view != null) view.refreshAll();
+        if (journaling()) append(journal.record(Op.SET_TWO_FA).putBoolean(enable));
+        refreshView(Domain.PROFILE);
         writeStateLog3();
     }
 
     public void setSelectedAppointment(UUID id) { this.selectedAppointmentId = id; }
 
     public Appointment getSelectedAppointment() {
-        if (selectedAppointmentId == null) return null;
-        return model.appointments.stream().filter(a -> a.id.equals(selectedAppointmentId)).findFirst().orElse(null);
+        return model.appointments.get(selectedAppointmentId);
     }
 
     public void updateUserProfile(String name, boolean email, boolean sms, boolean inApp, boolean twoFA) {
@@ -443,36 +863,33 @@ public class Controller implements ControllerInterface {
             throw new IllegalArgumentException("Name cannot be empty");
         }
         model.profile.name = name.trim();
-        setNotificationPrefs(email, sms, inApp);
-        setTwoFA(twoFA);
-        if (uiEnabled && view != null) view.refreshAll();
+        model.profile.notifEmail = email;
+        model.profile.notifSMS = sms;
+        model.profile.notifInApp = inApp;
+        model.profile.twoFA = twoFA;
+        if (journaling()) {
+            append(journal.record(Op.UPDATE_PROFILE).putString(name)
+                    .putBoolean(email).putBoolean(sms).putBoolean(inApp).putBoolean(twoFA));
+        }
+        refreshView(Domain.PROFILE);
         writeStateLog3();
     }
 
     /* -----------------------------------------------------------
        Helpers
        ----------------------------------------------------------- */
-    private static String normalize(String s) {
-        return s == null ? "" : s.trim().toUpperCase(Locale.ROOT);
-    }
-
-    private static boolean isInsurance(String f) {
-        return f.equals("INSURANCE_MINIMAL") || f.equals("INSURANCE_NORMAL") || f.equals("INSURANCE_PREMIUM");
-    }
-
-    private static boolean isPricing(String f) {
-        return f.equals("OUT_OF_POCKET") || f.equals("PRICE_REDUCTION") || f.equals("DEFERRED_PAYMENT");
+    /** Marks pages showing the changed domains stale; only the visible one repaints now. */
+    private void refreshView(Domain... changed) {
+        if (uiEnabled && view != null) view.invalidate(changed);
     }
 
     private void writeStateLog() {
-        try (FileWriter fw = new FileWriter("state_log.txt", false)) {
-            for (String line : getStateAsLog()) fw.write(line + System.lineSeparator());
-        } catch (IOException e) { e.printStackTrace(); }
+        if (replaying) return;
+        logWriter.submit("state_log.txt", stateLog());
     }
 
     private void writeStateLog1() {
-        try (FileWriter fw = new FileWriter("state_log1.txt", false)) {
-            for (String line : getStateAsLog1()) fw.write(line + System.lineSeparator());
-        } catch (IOException e) { e.printStackTrace(); }
+        if (replaying) return;
+        logWriter.submit("state_log1.txt", stateLog1());
     }
 }
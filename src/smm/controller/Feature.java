@@ -0,0 +1,77 @@
+package smm.controller;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The controller's feature model. Each feature is one bit of a long
+ * ({@link #bit}); the Controller keeps its on/off state as such a mask.
+ * Names are the UPPERCASE strings activate() accepts.
+ */
+public enum Feature {
+    // real features
+    APPOINTMENTS(Group.MODULE), MEDICAL_HISTORY(Group.MODULE), PAYMENT(Group.MODULE), REMINDERS(Group.MODULE),
+    APPOINTMENT_REMINDER(Group.MODULE), MEDICATION_REMINDER(Group.MODULE),
+    INSURANCE_MINIMAL(Group.INSURANCE), INSURANCE_NORMAL(Group.INSURANCE), INSURANCE_PREMIUM(Group.INSURANCE),
+    OUT_OF_POCKET(Group.PRICING), PRICE_REDUCTION(Group.PRICING), DEFERRED_PAYMENT(Group.PRICING),
+
+    // test-only/no-op features so activations don't diverge
+    ADD_CONSULTATION(Group.MODULE), ADD_PRESCRIPTIONS(Group.MODULE), ADD_SURGERIES(Group.MODULE),
+    ADD_TO_CALENDAR(Group.MODULE), BASIC_SEARCH(Group.MODULE), ADVANCED_SEARCH(Group.MODULE);
+
+    /** Modules are on/off switches; insurance and pricing features select the plan. */
+    public enum Group { MODULE, INSURANCE, PRICING }
+
+    public final Group group;
+    public final long bit = 1L << ordinal();
+
+    Feature(Group group) { this.group = group; }
+
+    private static final Feature[] ALL = values();
+    private static final Map<String, Feature> BY_NAME = new HashMap<>();
+    /** All features of each group, as a mask. */
+    public static final long MODULES, INSURANCE, PRICING;
+    static {
+        long modules = 0, insurance = 0, pricing = 0;
+        for (Feature f : ALL) {
+            BY_NAME.put(f.name(), f);
+            switch (f.group) {
+                case MODULE -> modules |= f.bit;
+                case INSURANCE -> insurance |= f.bit;
+                case PRICING -> pricing |= f.bit;
+            }
+        }
+        MODULES = modules;
+        INSURANCE = insurance;
+        PRICING = pricing;
+    }
+
+    /** The feature named exactly "name", or null. */
+    public static Feature named(String name) {
+        return name == null ? null : BY_NAME.get(name);
+    }
+
+    /** The feature a user/test string names (trimmed, any case), or null if not in the model. */
+    public static Feature parse(String s) {
+        if (s == null) return null;
+        Feature f = BY_NAME.get(s); // already canonical: no new string
+        return f != null ? f : BY_NAME.get(s.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /** OR of the bits of the named features; unknown names are ignored. */
+    public static long mask(String[] names) {
+        long m = 0;
+        if (names == null) return m;
+        for (String s : names) {
+            Feature f = parse(s);
+            if (f != null) m |= f.bit;
+        }
+        return m;
+    }
+
+    /** The feature at the lowest set bit of a non-zero mask. */
+    public static Feature lowest(long mask) {
+        return ALL[Long.numberOfTrailingZeros(mask)];
+    }
+}
@@ -0,0 +1,88 @@
+package smm.controller;
+
+import smm.model.AppModel;
+import smm.model.InsuranceLevel;
+
+/**
+ * What Controller.activate does to the feature state, as a pure function of
+ * three masks (state, deactivations, activations), plus a bounded memo of
+ * recent results.
+ *
+ * The memo is direct-mapped: a fixed number of slots indexed by a hash of the
+ * three masks, where a new entry simply replaces whatever held its slot. It
+ * never grows and never allocates after construction. Insurance and pricing
+ * are read back from the resulting state, so one long is the whole result.
+ */
+public final class FeatureTransitions {
+    private static final long EMPTY = -1L; // no reachable state has all 64 bits set
+
+    private final long[] state, deact, act, result;
+    private final int mask;
+    private long hits, misses;
+    private int used;
+
+    /** Cache hit/miss counts and occupancy. */
+    public record Stats(long hits, long misses, int size, int capacity) {}
+
+    /** @param capacity slots, rounded up to a power of two */
+    FeatureTransitions(int capacity) {
+        int n = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        state = new long[n];
+        deact = new long[n];
+        act = new long[n];
+        result = new long[n];
+        java.util.Arrays.fill(result, EMPTY);
+        mask = n - 1;
+    }
+
+    /** apply(s, d, a), from the memo when this triple was seen recently. */
+    long resolve(long s, long d, long a) {
+        long h = s * 0x9E3779B97F4A7C15L ^ d * 0xC2B2AE3D27D4EB4FL ^ a * 0x165667B19E3779F9L;
+        int i = (int) (h ^ (h >>> 32)) & mask;
+        if (result[i] != EMPTY && state[i] == s && deact[i] == d && act[i] == a) {
+            hits++;
+            return result[i];
+        }
+        misses++;
+        if (result[i] == EMPTY) used++;
+        state[i] = s;
+        deact[i] = d;
+        act[i] = a;
+        return result[i] = apply(s, d, a);
+    }
+
+    Stats stats() { return new Stats(hits, misses, used, result.length); }
+
+    /* ---------------- The transition ---------------- */
+
+    /**
+     * The feature state after deactivating "d" and then activating "a"
+     * (order-independent), with the plan defaults and the REMINDERS invariant applied.
+     */
+    static long apply(long s, long d, long a) {
+        long state = (s & ~d) | a;
+        if ((state & Feature.INSURANCE) == 0) state |= Feature.INSURANCE_NORMAL.bit; // none → NORMAL
+        if ((state & Feature.PRICING) == 0) state |= Feature.OUT_OF_POCKET.bit;      // none → OUT_OF_POCKET
+
+        // Parent/children invariant for REMINDERS
+        long children = state & (Feature.APPOINTMENT_REMINDER.bit | Feature.MEDICATION_REMINDER.bit);
+        if ((state & Feature.REMINDERS.bit) == 0) state &= ~children; // parent OFF ⇒ children OFF
+        if (children != 0) state |= Feature.REMINDERS.bit;               // any child ON ⇒ parent ON
+        return state;
+    }
+
+    /** Priority: PREMIUM > NORMAL > MINIMAL (apply() guarantees one is set). */
+    static InsuranceLevel insurance(long state) {
+        if ((state & Feature.INSURANCE_PREMIUM.bit) != 0) return InsuranceLevel.PREMIUM;
+        if ((state & Feature.INSURANCE_NORMAL.bit) != 0) return InsuranceLevel.NORMAL;
+        if ((state & Feature.INSURANCE_MINIMAL.bit) != 0) return InsuranceLevel.MINIMAL;
+        return InsuranceLevel.NORMAL;
+    }
+
+    /** Priority: DEFERRED > PRICE_REDUCTION > OUT_OF_POCKET. */
+    static AppModel.PricingType pricing(long state) {
+        if ((state & Feature.DEFERRED_PAYMENT.bit) != 0) return AppModel.PricingType.DEFERRED_PAYMENT;
+        if ((state & Feature.PRICE_REDUCTION.bit) != 0) return AppModel.PricingType.PRICE_REDUCTION;
+        return AppModel.PricingType.OUT_OF_POCKET;
+    }
+}
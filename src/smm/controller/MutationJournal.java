@@ -0,0 +1,392 @@
+package smm.controller;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only binary journal of the mutations accepted by the Controller,
+ * replayed on top of the last snapshot at startup.
+ *
+ * File layout, little-endian:
+ *   "SMMJ" magic, int version, epoch (two longs)
+ *   records: int payload length, byte op, payload, int CRC32C of op + payload
+ * The epoch ties the journal to the snapshot it follows: a checkpoint saves a
+ * snapshot carrying a new epoch, then resets the journal to that epoch, so a
+ * crash between the two leaves a journal that is recognized as already
+ * contained in the snapshot. Replay stops at the first torn or corrupt
+ * record (a crash mid-write) and cuts the file there.
+ *
+ * Group commit: {@link #append} copies the record into a buffer and returns;
+ * a single "journal-sync" thread writes everything buffered since its last
+ * pass in one write and one fsync. Records appended while an fsync runs form
+ * the next batch, so a burst of N mutations costs far fewer than N fsyncs.
+ * Call {@link #sync()} when a record must be on disk before going on.
+ */
+public class MutationJournal implements AutoCloseable {
+    public static final int VERSION = 1;
+    private static final int MAGIC = 0x4A4D4D53; // "SMMJ"
+    private static final int HEADER = 24;
+    private static final int NO_DAY = Integer.MIN_VALUE;
+
+    /** Record kinds; the code is the ordinal, so only append new ones. */
+    public enum Op {
+        ACTIVATE, BOOKING, ADD_HISTORY, PAY_INVOICE, SET_REMINDER_ENABLED, SET_INSURANCE,
+        UPDATE_PROFILE, ADD_REMINDER, SET_NOTIFICATIONS, SET_TWO_FA, TIME_ADVANCED, BOOKINGS,
+        REMOVE_APPOINTMENT, PAY_APPOINTMENT, RESCHEDULE, UPDATE_CONTACT
+    }
+    private static final Op[] OPS = Op.values();
+
+    private final Path file;
+    private final FileChannel channel;
+    private UUID epoch;
+
+    // group commit state, guarded by "lock"
+    private final Object lock = new Object();
+    private Record pending = new Record();  // appended, not yet handed to the sync thread
+    private Record spare = new Record();
+    private long appended, durable, batches;
+    private IOException failure;
+    private boolean closed;
+    private final Thread syncer;
+
+    private MutationJournal(Path file, FileChannel channel, UUID epoch) {
+        this.file = file;
+        this.channel = channel;
+        this.epoch = epoch;
+        this.syncer = new Thread(this::syncLoop, "journal-sync");
+        syncer.setDaemon(true);
+        syncer.start();
+    }
+
+    /**
+     * Opens (or creates) the journal. If it belongs to "epoch", its records are
+     * passed to "replay" in order; otherwise it is stale (or new) and is reset
+     * to "epoch". Appends go after the last intact record.
+     */
+    public static MutationJournal open(Path file, UUID epoch, BiConsumer<Op, In> replay) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long end = ch.size() >= HEADER && epoch.equals(readEpoch(ch)) ? replay(ch, replay) : -1;
+            if (end < 0) {
+                writeHeader(ch, epoch);
+            } else if (end < ch.size()) {
+                ch.truncate(end); // torn tail
+                ch.force(false);
+            }
+            ch.position(ch.size());
+            return new MutationJournal(file, ch, epoch);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    public Path getFile() { return file; }
+
+    public UUID getEpoch() { synchronized (lock) { return epoch; } }
+
+    /** Records appended since open, and the fsync batches they took (group commit ratio). */
+    public long recordCount() { synchronized (lock) { return appended; } }
+    public long batchCount() { synchronized (lock) { return batches; } }
+
+    /* ---------------- Appending ---------------- */
+
+    /** Starts a record; fill it with the put methods and pass it to {@link #append}. */
+    public Record record(Op op) {
+        Record r = new Record();
+        r.buf.put((byte) op.ordinal());
+        return r;
+    }
+
+    /** Queues a record for the next group commit; returns its sequence number. */
+    public long append(Record r) throws IOException {
+        synchronized (lock) {
+            if (failure != null) throw new IOException("journal write failed earlier: " + file, failure);
+            if (closed) throw new IOException("journal closed: " + file);
+            pending.frame(r);
+            lock.notifyAll();
+            return ++appended;
+        }
+    }
+
+    /** Blocks until record "seq" (and everything before it) is on disk. */
+    public void awaitDurable(long seq) throws IOException {
+        synchronized (lock) {
+            while (durable < seq && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("interrupted waiting for the journal", e);
+                }
+            }
+            if (durable < seq) throw new IOException("journal write failed: " + file, failure);
+        }
+    }
+
+    /** Blocks until every record appended so far is on disk. */
+    public void sync() throws IOException {
+        synchronized (lock) { awaitDurable(appended); }
+    }
+
+    /**
+     * Empties the journal after a snapshot was saved with "newEpoch": records
+     * appended so far are in that snapshot.
+     */
+    public void reset(UUID newEpoch) throws IOException {
+        synchronized (lock) {
+            // wait until nothing is buffered or being written: the sync thread is then idle
+            while (durable < appended) awaitDurable(appended);
+            channel.truncate(0);
+            writeHeader(channel, newEpoch);
+            channel.position(HEADER);
+            epoch = newEpoch;
+        }
+    }
+
+    /** Syncs outstanding records and stops the sync thread. */
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            synchronized (lock) {
+                closed = true;
+                lock.notifyAll();
+            }
+            try {
+                syncer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            channel.close();
+        }
+    }
+
+    private void syncLoop() {
+        while (true) {
+            Record batch;
+            long seq;
+            synchronized (lock) {
+                while (pending.buf.position() == 0 && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.buf.position() == 0) return; // closed and drained
+                batch = pending;
+                pending = spare;
+                seq = appended;
+            }
+            try {
+                ByteBuffer b = batch.buf.flip();
+                while (b.hasRemaining()) channel.write(b);
+                channel.force(false);
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+            batch.buf.clear();
+            synchronized (lock) {
+                spare = batch;
+                durable = seq;
+                batches++;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /* ---------------- Reading ---------------- */
+
+    private static UUID readEpoch(FileChannel ch) throws IOException {
+        ByteBuffer h = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        ch.read(h, 0);
+        h.flip();
+        if (h.getInt() != MAGIC) throw new IOException("not a mutation journal: " + ch);
+        int version = h.getInt();
+        if (version != VERSION) throw new IOException("unsupported journal version " + version);
+        return new UUID(h.getLong(), h.getLong());
+    }
+
+    /** Passes every intact record to "replay"; returns the offset after the last one. */
+    private static long replay(FileChannel ch, BiConsumer<Op, In> replay) throws IOException {
+        // a heap copy, not a mapping: open() truncates the file next, which fails on a mapped file on Windows
+        long length = ch.size();
+        if (length > Integer.MAX_VALUE) throw new IOException("journal too large: " + ch);
+        ByteBuffer data = ByteBuffer.allocate((int) length).order(ByteOrder.LITTLE_ENDIAN);
+        while (data.hasRemaining()) {
+            if (ch.read(data, data.position()) < 0) break;
+        }
+        data.flip().position(HEADER);
+        CRC32C crc = new CRC32C();
+        int good = HEADER;
+        while (data.remaining() >= 4) {
+            int len = data.getInt(good);
+            if (len < 0 || data.limit() - good - 4 < len + 5) break;
+            ByteBuffer body = data.slice(good + 4, len + 1).order(ByteOrder.LITTLE_ENDIAN);
+            crc.reset();
+            crc.update(body.duplicate());
+            if (data.getInt(good + 5 + len) != (int) crc.getValue()) break;
+            int op = body.get();
+            if (op < 0 || op >= OPS.length) break;
+            try {
+                replay.accept(OPS[op], new In(body));
+            } catch (BufferUnderflowException | IllegalArgumentException | java.time.DateTimeException e) {
+                throw new IOException("malformed journal record " + OPS[op] + " at offset " + good, e);
+            }
+            good += len + 9;
+            data.position(good);
+        }
+        return good;
+    }
+
+    private static void writeHeader(FileChannel ch, UUID epoch) throws IOException {
+        ByteBuffer h = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        h.putInt(MAGIC).putInt(VERSION).putLong(epoch.getMostSignificantBits()).putLong(epoch.getLeastSignificantBits());
+        h.flip();
+        ch.truncate(0);
+        while (h.hasRemaining()) ch.write(h, h.position());
+        ch.force(false);
+    }
+
+    /* ---------------- Encoding ---------------- */
+
+    /** A record being built (op byte + payload), or a batch of framed records. */
+    public static final class Record {
+        private ByteBuffer buf = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+
+        private Record() {}
+
+        public Record putBoolean(boolean v) { room(1); buf.put((byte) (v ? 1 : 0)); return this; }
+        public Record putInt(int v) { room(4); buf.putInt(v); return this; }
+        public Record putLong(long v) { room(8); buf.putLong(v); return this; }
+        public Record putDouble(double v) { room(8); buf.putDouble(v); return this; }
+
+        /** null-safe; stored as int byte length (-1 = null) + UTF-8. */
+        public Record putString(String s) {
+            if (s == null) return putInt(-1);
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            putInt(b.length);
+            room(b.length);
+            buf.put(b);
+            return this;
+        }
+
+        public Record putStrings(String[] values) {
+            putInt(values == null ? -1 : values.length);
+            if (values != null) for (String s : values) putString(s);
+            return this;
+        }
+
+        public Record putUuid(UUID id) {
+            putBoolean(id != null);
+            return id == null ? this : putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+        }
+
+        public Record putDate(LocalDate d) { return putInt(d == null ? NO_DAY : Math.toIntExact(d.toEpochDay())); }
+        public Record putTime(LocalTime t) { return putLong(t == null ? -1 : t.toNanoOfDay()); }
+
+        public Record putDateTime(LocalDateTime t) {
+            if (t == null) return putLong(Long.MIN_VALUE);
+            return putLong(t.toEpochSecond(ZoneOffset.UTC)).putInt(t.getNano());
+        }
+
+        public <E extends Enum<E>> Record putEnum(E e) { return putString(e == null ? null : e.name()); }
+
+        /** Appends "r" framed with its length and checksum (batch side). */
+        private void frame(Record r) {
+            ByteBuffer body = r.buf.duplicate().flip();
+            int len = body.remaining() - 1;
+            CRC32C crc = new CRC32C();
+            crc.update(body.duplicate());
+            room(len + 9);
+            buf.putInt(len).put(body).putInt((int) crc.getValue());
+        }
+
+        private void room(int n) {
+            if (buf.remaining() >= n) return;
+            ByteBuffer b = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + n))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buf.flip();
+            b.put(buf);
+            buf = b;
+        }
+    }
+
+    /** Reads a record payload in the order it was written. */
+    public static final class In {
+        private final ByteBuffer buf;
+
+        private In(ByteBuffer buf) { this.buf = buf; }
+
+        public boolean getBoolean() { return buf.get() != 0; }
+        public int getInt() { return buf.getInt(); }
+        public long getLong() { return buf.getLong(); }
+        public double getDouble() { return buf.getDouble(); }
+
+        public String getString() {
+            int len = buf.getInt();
+            if (len < 0) return null;
+            if (len > buf.remaining()) throw new BufferUnderflowException();
+            String s;
+            if (buf.hasArray()) {
+                s = new String(buf.array(), buf.arrayOffset() + buf.position(), len, StandardCharsets.UTF_8);
+            } else {
+                byte[] b = new byte[len];
+                buf.get(buf.position(), b);
+                s = new String(b, StandardCharsets.UTF_8);
+            }
+            buf.position(buf.position() + len);
+            return s;
+        }
+
+        public String[] getStrings() {
+            int n = buf.getInt();
+            if (n < 0) return null;
+            if (n > buf.remaining() / 4) throw new BufferUnderflowException();
+            String[] out = new String[n];
+            for (int i = 0; i < n; i++) out[i] = getString();
+            return out;
+        }
+
+        public UUID getUuid() { return getBoolean() ? new UUID(buf.getLong(), buf.getLong()) : null; }
+
+        public LocalDate getDate() {
+            int day = buf.getInt();
+            return day == NO_DAY ? null : LocalDate.ofEpochDay(day);
+        }
+
+        public LocalTime getTime() {
+            long nanos = buf.getLong();
+            return nanos < 0 ? null : LocalTime.ofNanoOfDay(nanos);
+        }
+
+        public LocalDateTime getDateTime() {
+            long sec = buf.getLong();
+            return sec == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(sec, buf.getInt(), ZoneOffset.UTC);
+        }
+
+        public <E extends Enum<E>> E getEnum(Class<E> type) {
+            String name = getString();
+            return name == null ? null : Enum.valueOf(type, name);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package smm.controller;
+
+import smm.model.DoctorRegistry;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The current doctor/price catalog, optionally reloaded when its file changes.
+ *
+ * The catalog is an immutable DoctorRegistry behind one AtomicReference.
+ * Reloads parse the file on a background "catalog-watch" thread into a
+ * complete new registry and then publish it with a single set, so readers
+ * never wait for a reload and never see a half-loaded table. A reader gets
+ * either the old catalog or the new one. A file that fails to parse leaves
+ * the current catalog in place.
+ *
+ * {@link #metrics()} reports reload latency (from the change settling to the
+ * new catalog being published, so the parse is included), failures, and how
+ * many price lookups were in flight at each swap.
+ */
+public class PriceCatalog implements AutoCloseable {
+    /** Editors often write a file in several steps; events this close together are one change. */
+    private static final long SETTLE_MILLIS = 50;
+
+    private final AtomicReference<DoctorRegistry> current;
+    private final AtomicInteger activeReaders = new AtomicInteger();
+    private final LongAdder lookups = new LongAdder();
+
+    // metrics; written by whoever swaps (the watch thread, or a set() caller)
+    private volatile long reloads, failures, lastReloadNanos, maxReloadNanos, totalReloadNanos;
+    private volatile int readersAtLastSwap, maxReadersAtSwap;
+    private volatile String lastError;
+
+    private WatchService watcher;
+    private Thread thread;
+
+    /** Reload and swap figures; latencies in microseconds. */
+    public record Metrics(long reloads, long failures, long lastReloadMicros, long maxReloadMicros,
+                          long avgReloadMicros, int readersAtLastSwap, int maxReadersAtSwap,
+                          long priceLookups, String lastError) {}
+
+    public PriceCatalog(DoctorRegistry initial) {
+        current = new AtomicReference<>(initial);
+    }
+
+    /** The catalog as of now; hold on to it for a consistent view across several lookups. */
+    public DoctorRegistry get() { return current.get(); }
+
+    /** Base price of a doctor in the current catalog; lock-free, counted as a reader while it runs. */
+    public double price(String doctor) {
+        activeReaders.incrementAndGet();
+        try {
+            lookups.increment();
+            return current.get().price(doctor);
+        } finally {
+            activeReaders.decrementAndGet();
+        }
+    }
+
+    /** Publishes a new catalog. */
+    public void set(DoctorRegistry registry) {
+        current.set(registry);
+        int readers = activeReaders.get();
+        readersAtLastSwap = readers;
+        if (readers > maxReadersAtSwap) maxReadersAtSwap = readers;
+    }
+
+    /* ---------------- Watching ---------------- */
+
+    /**
+     * Loads "file" now if it exists, then reloads it on every change until
+     * {@link #close()}. onSwap runs on the watch thread after each new catalog
+     * is published.
+     * @throws IOException if the directory cannot be watched
+     */
+    public synchronized void watch(Path file, Runnable onSwap) throws IOException {
+        if (thread != null) throw new IllegalStateException("already watching");
+        Path target = file.toAbsolutePath();
+        Path dir = target.getParent();
+        watcher = dir.getFileSystem().newWatchService();
+        dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        if (Files.exists(target)) reload(target, System.nanoTime(), onSwap);
+
+        WatchService ws = watcher;
+        thread = new Thread(() -> watchLoop(ws, target, onSwap), "catalog-watch");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watchLoop(WatchService ws, Path target, Runnable onSwap) {
+        Path name = target.getFileName();
+        try {
+            while (true) {
+                WatchKey key = ws.take();
+                boolean changed = false;
+                do {
+                    for (WatchEvent<?> e : key.pollEvents()) {
+                        changed |= e.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(e.context());
+                    }
+                    key.reset();
+                } while ((key = ws.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null);
+                if (changed && Files.exists(target)) reload(target, System.nanoTime(), onSwap);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private void reload(Path file, long started, Runnable onSwap) {
+        DoctorRegistry loaded;
+        try {
+            // a writer still at work shows up as a changed size/mtime; its next event reloads
+            BasicFileAttributes before = Files.readAttributes(file, BasicFileAttributes.class);
+            loaded = DoctorRegistry.load(file);
+            BasicFileAttributes after = Files.readAttributes(file, BasicFileAttributes.class);
+            if (before.size() != after.size() || !before.lastModifiedTime().equals(after.lastModifiedTime())) return;
+        } catch (IOException | RuntimeException e) {
+            failures++;
+            lastError = e.getMessage();
+            e.printStackTrace(); // keep serving the current catalog
+            return;
+        }
+        set(loaded);
+        long took = System.nanoTime() - started;
+        lastReloadNanos = took;
+        if (took > maxReloadNanos) maxReloadNanos = took;
+        totalReloadNanos += took;
+        reloads++;
+        lastError = null;
+        onSwap.run();
+    }
+
+    public Metrics metrics() {
+        long n = reloads;
+        return new Metrics(n, failures, lastReloadNanos / 1000, maxReloadNanos / 1000,
+                n == 0 ? 0 : totalReloadNanos / n / 1000, readersAtLastSwap, maxReadersAtSwap,
+                lookups.sum(), lastError);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (watcher != null) watcher.close();
+        if (thread != null) thread.interrupt();
+        watcher = null;
+        thread = null;
+    }
+}
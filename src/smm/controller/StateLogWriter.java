@@ -0,0 +1,111 @@
+package smm.controller;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background writer for the state_log*.txt side files.
+ *
+ * Callers hand over the lines to write and return immediately. Submissions
+ * for the same file that arrive before the writer thread gets to them are
+ * coalesced: only the latest lines are written. Each write goes to a temp
+ * file in the same directory and is then moved over the target, so readers
+ * never see a half-written log. Use {@link #flush()} when the file must be
+ * up to date on return.
+ */
+public class StateLogWriter implements AutoCloseable {
+
+    // Writers still alive at JVM exit get flushed once by a single hook.
+    private static final Set<StateLogWriter> LIVE =
+            Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            List<StateLogWriter> writers;
+            synchronized (LIVE) { writers = new ArrayList<>(LIVE); }
+            for (StateLogWriter w : writers) w.drain();
+        }, "state-log-flush"));
+    }
+
+    private final Path dir;
+    private final Map<String, String[]> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    // single worker that exits when idle, so an unused writer holds no thread
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            0, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            r -> new Thread(r, "state-log-writer"));
+
+    /** @param dir directory the log files are written to */
+    public StateLogWriter(Path dir) {
+        this.dir = dir;
+        LIVE.add(this);
+    }
+
+    public Path getDirectory() { return dir; }
+
+    /** Schedules "lines" to become the full content of "fileName". */
+    public void submit(String fileName, String[] lines) {
+        pending.put(fileName, lines);
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) { // closed: write on the caller
+                drain();
+            }
+        }
+    }
+
+    /** Blocks until every submission made before this call is on disk. */
+    public void flush() {
+        if (executor.isShutdown()) { drain(); return; }
+        try {
+            executor.submit(this::drain).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+        }
+    }
+
+    /** Flushes pending writes and stops the worker thread. */
+    @Override
+    public void close() {
+        flush();
+        executor.shutdown();
+        LIVE.remove(this);
+    }
+
+    private synchronized void drain() {
+        // cleared first: a submit racing with this drain schedules another one
+        scheduled.set(false);
+        for (String name : new ArrayList<>(pending.keySet())) {
+            String[] lines = pending.remove(name);
+            if (lines != null) write(name, lines);
+        }
+    }
+
+    private void write(String name, String[] lines) {
+        Path target = dir.resolve(name);
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile(dir, name, ".tmp");
+            try (BufferedWriter w = Files.newBufferedWriter(tmp, Charset.defaultCharset())) {
+                for (String line : lines) w.write(line + System.lineSeparator());
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            if (tmp != null) {
+                try { Files.deleteIfExists(tmp); } catch (IOException ignored) {}
+            }
+        }
+    }
+}
@@ -3,7 +3,9 @@ package smm.model;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Predicate;
 
 /**
  * Core domain model for the app.
@@ -18,18 +20,33 @@ public class AppModel implements TimeObserver {
 
     // --- Existing state ---
     public final UserProfile profile = new UserProfile();
-    public final List<Appointment> appointments = new ArrayList<>();
-    public final List<HistoryRecord> history = new ArrayList<>();
-    public final List<Invoice> invoices = new ArrayList<>();
-    public final List<Reminder> reminders = new ArrayList<>();
+    public final AppointmentStore appointments = new AppointmentStore();
+    public final HistoryLog history = new HistoryLog();
+    public final InvoiceLedger invoices = new InvoiceLedger();
+    private final List<Reminder> reminderList = new ArrayList<>();
+    public final List<Reminder> reminders = new ReminderList(); // edits keep the index, count and schedule in step
+    private final Map<UUID, Reminder> remindersById = new HashMap<>();
+    private int enabledReminders = 0;
+    // Reminders fire on the simulated clock: wall-clock time shifted by the TES jumps so far
+    private final ReminderScheduler reminderScheduler = new ReminderScheduler(LocalDateTime.now());
+    private final Deque<Reminder> firedReminders = new ArrayDeque<>(); // newest first
+    private static final int FIRED_KEPT = 20;
+    private long clockOffsetDays = 0;
     public double creditBalance = 35.0;
 
     public AppModel() {
+        this(true);
+    }
+
+    /** @param seedDemoData false for an empty model (restoring a snapshot) */
+    AppModel(boolean seedDemoData) {
+        if (!seedDemoData) return;
         // seed demo data
-        appointments.add(new Appointment(
+        Appointment derma = new Appointment(
                 LocalDate.now().plusDays(2), LocalTime.of(9,30),
                 "Consultation", "Dermatology", "Dr. Martin", "St-Luc",
-                "Shared", "—", 120));
+                "Shared", "—", 120);
+        appointments.add(derma);
         appointments.add(new Appointment(
                 LocalDate.now().plusDays(9), LocalTime.of(15,0),
                 "Consultation", "Cardiology", "Dr. Duval", "CHU",
@@ -40,11 +57,11 @@ public class AppModel implements TimeObserver {
         history.add(new HistoryRecord(LocalDate.now().minusMonths(3), "Surgery", "Appendectomy"));
 
         invoices.add(new Invoice(LocalDate.now().minusDays(3), 60.0, true, null));
-        invoices.add(new Invoice(LocalDate.now().minusDays(1), 120.0, false, appointments.get(0).id));
+        invoices.add(new Invoice(LocalDate.now().minusDays(1), 120.0, false, derma.id));
 
-        reminders.add(new Reminder("appointment", "Dermatology in 2 days",
+        addReminder(new Reminder("appointment", "Dermatology in 2 days",
                 LocalDateTime.now().plusDays(2).withHour(9).withMinute(0)));
-        reminders.add(new Reminder("medication", "Take Vitamin D",
+        addReminder(new Reminder("medication", "Take Vitamin D",
                 LocalDateTime.now().withHour(8).withMinute(0)));
     }
 
@@ -59,11 +76,12 @@ public class AppModel implements TimeObserver {
 
     /** Price after insurance coverage only (no pricing applied). */
     public double priceAfterInsurance(double base) {
-        return switch (profile.insurance) {
-            case MINIMAL -> base;
-            case NORMAL  -> base * 0.8;   // 20% covered
-            case PREMIUM -> base * 0.5;   // 50% covered
-        };
+        return priceAfterInsurance(base, profile.insurance);
+    }
+
+    /** MINIMAL pays all, NORMAL 80%, PREMIUM 50% (see PricingEngine). */
+    public static double priceAfterInsurance(double base, InsuranceLevel insurance) {
+        return PricingEngine.afterInsurance(base, insurance);
     }
 
     // --- Pricing (new) ---
@@ -81,12 +99,20 @@ public class AppModel implements TimeObserver {
      *  - Pricing strategy (extra discount or deferral)
      */
     public double priceAfterPlan(double base) {
-        double afterInsurance = priceAfterInsurance(base);
-        return switch (pricing) {
-            case OUT_OF_POCKET   -> afterInsurance;
-            case PRICE_REDUCTION -> afterInsurance * 0.9; // extra 10% discount
-            case DEFERRED_PAYMENT-> afterInsurance;       // same amount, paid later
-        };
+        return priceAfterPlan(base, profile.insurance, pricing);
+    }
+
+    /**
+     * priceAfterPlan for an explicit plan, e.g. one captured on the EDT for a background query.
+     * PRICE_REDUCTION takes another 10% off; DEFERRED_PAYMENT is the same amount, paid later.
+     */
+    public static double priceAfterPlan(double base, InsuranceLevel insurance, PricingType pricing) {
+        return PricingEngine.price(base, insurance, pricing);
+    }
+
+    /** Brings unpaid invoices in line with the current plan; returns how many changed. */
+    public int repriceAll() {
+        return PricingEngine.repriceAll(this);
     }
 
     /** True if payment should be deferred by policy (used by UI to disable Pay Now). */
@@ -96,6 +122,12 @@ public class AppModel implements TimeObserver {
 
     // --- App operations ---
     public Appointment createAppointment(Appointment a, boolean addToCalendar, boolean payNow) {
+        return createAppointment(a, addToCalendar, payNow, LocalDate.now(), UUID.randomUUID(), UUID.randomUUID());
+    }
+
+    /** Same, with the invoice date and the ids of the invoice and calendar reminder given (journal replay). */
+    public Appointment createAppointment(Appointment a, boolean addToCalendar, boolean payNow,
+                                         LocalDate issuedOn, UUID invoiceId, UUID reminderId) {
         appointments.add(a);
 
         // Compute price with insurance + pricing
@@ -104,11 +136,13 @@ public class AppModel implements TimeObserver {
         // If pricing = DEFERRED_PAYMENT, force unpaid (cannot pay now)
         boolean payNowEffective = payNow && !canDeferredPayment();
 
-        invoices.add(new Invoice(LocalDate.now(), amount, payNowEffective, a.id));
+        invoices.add(new Invoice(invoiceId, issuedOn, amount, payNowEffective, a.id));
         a.paid = payNowEffective;
+        appointments.reindex(a);
 
         if (addToCalendar) {
-            reminders.add(new Reminder(
+            addReminder(new Reminder(
+                    reminderId,
                     "appointment",
                     a.type + " @ " + a.medicalCenter,
                     LocalDateTime.of(a.date, a.time)
@@ -117,28 +151,185 @@ public class AppModel implements TimeObserver {
         return a;
     }
 
+    /** createAppointment for a batch, with fresh ids and today's invoice date. */
+    public List<Appointment> createAppointments(List<BookingRequest> batch) {
+        UUID[] ids = new UUID[batch.size() * 3];
+        for (int i = 0; i < batch.size(); i++) {
+            ids[3 * i] = UUID.randomUUID();
+            ids[3 * i + 1] = UUID.randomUUID();
+            if (batch.get(i).addToCalendar()) ids[3 * i + 2] = UUID.randomUUID();
+        }
+        return createAppointments(batch, LocalDate.now(), ids);
+    }
+
+    /**
+     * Books a batch: same result as createAppointment for each request in order,
+     * but priced in one PricingEngine pass and added with the indexes pre-sized.
+     * @param ids appointment, invoice and reminder id of each request, in that order (journal replay)
+     */
+    public List<Appointment> createAppointments(List<BookingRequest> batch, LocalDate issuedOn, UUID[] ids) {
+        int n = batch.size();
+        double[] base = new double[n], amount = new double[n];
+        for (int i = 0; i < n; i++) base[i] = batch.get(i).basePrice();
+        PricingEngine.priceAll(base, amount, n, profile.insurance, pricing);
+
+        boolean deferred = canDeferredPayment();
+        appointments.reserve(appointments.size() + n);
+        List<Appointment> booked = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            BookingRequest r = batch.get(i);
+            Appointment a = new Appointment(ids[3 * i], r.date(), r.time(), r.type(), r.service(),
+                    r.doctor(), r.center(), r.room(), r.equipment(), r.basePrice());
+            a.paid = r.payNow() && !deferred; // set before add: no reindex
+            appointments.add(a);
+            invoices.add(new Invoice(ids[3 * i + 1], issuedOn, amount[i], a.paid, a.id));
+            if (r.addToCalendar()) {
+                addReminder(new Reminder(ids[3 * i + 2], "appointment",
+                        a.type + " @ " + a.medicalCenter, LocalDateTime.of(a.date, a.time)));
+            }
+            booked.add(a);
+        }
+        return booked;
+    }
+
     public void markInvoicePaid(UUID invoiceId) {
-        invoices.stream()
-                .filter(i -> i.id.equals(invoiceId))
-                .findFirst()
-                .ifPresent(i -> i.paid = true);
+        invoices.markPaid(invoiceId);
+    }
+
+    /** Drops an appointment and its invoices; returns it, or null if unknown. */
+    public Appointment removeAppointment(UUID id) {
+        invoices.removeForAppointment(id);
+        return appointments.remove(id);
     }
 
-    // --- TimeEvent handling (unchanged logic) ---
+    /**
+     * Pays an appointment: its unpaid invoice if it has one, otherwise a new paid
+     * invoice at the plan price, with the id and date given (journal replay).
+     * @return the invoice paid, or null if the appointment is unknown or already paid
+     */
+    public Invoice payAppointment(UUID id, LocalDate issuedOn, UUID invoiceId) {
+        Appointment a = appointments.get(id);
+        if (a == null) return null;
+        Invoice inv = invoices.unpaidForAppointment(id);
+        if (inv != null) {
+            invoices.markPaid(inv.id);
+        } else {
+            Invoice any = invoices.forAppointment(id);
+            if (any != null && any.paid) return null;
+            inv = new Invoice(invoiceId, issuedOn, priceAfterPlan(a.price), true, id);
+            invoices.add(inv);
+        }
+        a.paid = true;
+        appointments.reindex(a);
+        return inv;
+    }
+
+    /**
+     * Gives the booked appointment with edited's id all of edited's fields, plus
+     * "paid". No conflict check; returns the appointment, or null if unknown.
+     */
+    public Appointment rescheduleAppointment(Appointment edited, boolean paid) {
+        Appointment a = appointments.get(edited.id);
+        if (a == null) return null;
+        a.type = edited.type;
+        a.service = edited.service;
+        a.doctor = edited.doctor;
+        a.medicalCenter = edited.medicalCenter;
+        a.roomType = edited.roomType;
+        a.equipment = edited.equipment;
+        a.date = edited.date;
+        a.time = edited.time;
+        a.price = edited.price;
+        a.paid = paid;
+        appointments.reindex(a); // date/time may have moved
+        return a;
+    }
+
+    // --- Reminders (enabled count maintained for the state logs) ---
+    public void addReminder(Reminder r) { reminders.add(r); }
+
+    /** The reminders list; every edit goes through track/untrack. */
+    private final class ReminderList extends AbstractList<Reminder> implements RandomAccess {
+        @Override public Reminder get(int i) { return reminderList.get(i); }
+        @Override public int size() { return reminderList.size(); }
+
+        @Override public void add(int i, Reminder r) {
+            reminderList.add(i, r);
+            track(r);
+            modCount++;
+        }
+
+        @Override public Reminder set(int i, Reminder r) {
+            Reminder old = reminderList.set(i, r);
+            untrack(old);
+            track(r);
+            return old;
+        }
+
+        @Override public Reminder remove(int i) {
+            Reminder old = reminderList.remove(i);
+            untrack(old);
+            modCount++;
+            return old;
+        }
+    }
+
+    private void track(Reminder r) {
+        remindersById.put(r.id, r);
+        if (r.enabled) enabledReminders++;
+        reminderScheduler.schedule(r);
+    }
+
+    private void untrack(Reminder r) {
+        remindersById.remove(r.id);
+        if (r.enabled) enabledReminders--;
+        reminderScheduler.cancel(r.id);
+    }
+
+    public void setReminderEnabled(UUID id, boolean enabled) {
+        Reminder r = remindersById.get(id);
+        if (r == null || r.enabled == enabled) return;
+        r.enabled = enabled;
+        enabledReminders += enabled ? 1 : -1;
+    }
+
+    public int enabledReminderCount() { return enabledReminders; }
+
+    /** Extra condition for firing (feature flags); "enabled" is always checked. */
+    public void setReminderGate(Predicate<Reminder> gate) { reminderScheduler.setGate(gate); }
+
+    /** Wall-clock now, moved forward by every time advance. */
+    public LocalDateTime simulatedNow() { return LocalDateTime.now().plusDays(clockOffsetDays); }
+
+    /** Fires reminders that came due on the simulated clock; returns them, earliest first. */
+    public List<Reminder> fireDueReminders() {
+        List<Reminder> fired = reminderScheduler.advanceTo(simulatedNow());
+        for (Reminder r : fired) {
+            firedReminders.addFirst(r);
+            if (firedReminders.size() > FIRED_KEPT) firedReminders.removeLast();
+        }
+        return fired;
+    }
+
+    long clockOffsetDays() { return clockOffsetDays; }
+    void setClockOffsetDays(long days) { clockOffsetDays = days; }
+    boolean isReminderPending(UUID id) { return reminderScheduler.isPending(id); }
+    void cancelReminder(UUID id) { reminderScheduler.cancel(id); }
+
+    /** Last fired reminders, newest first. */
+    public List<Reminder> recentlyFired() { return List.copyOf(firedReminders); }
+
+    // --- TimeEvent handling ---
     @Override
     public void onTimeAdvanced(TimeEvent event) {
-        // Move past appointments to history
-        var past = new ArrayList<>(appointments);
-        for (var a : past) {
-            if (a.date.isBefore(event.newDate)) {
-                history.add(new HistoryRecord(
-                        a.date,
-                        a.type,
-                        "Completed: " + a.service + " with " + a.doctor + " @ " + a.medicalCenter
-                ));
-            }
+        // Move past appointments to history, in the order they were added
+        for (var a : appointments.drainBefore(event.newDate)) {
+            history.add(new HistoryRecord(
+                    a.date,
+                    a.type,
+                    "Completed: " + a.service + " with " + a.doctor + " @ " + a.medicalCenter
+            ));
         }
-        appointments.removeIf(a -> a.date.isBefore(event.newDate));
 
         // Random/system events that append to history (demo)
         for (String ev : event.events) {
@@ -146,5 +337,8 @@ public class AppModel implements TimeObserver {
                 history.add(new HistoryRecord(event.newDate, "Consultation", "Random illness treated"));
             }
         }
+
+        clockOffsetDays += ChronoUnit.DAYS.between(event.oldDate, event.newDate);
+        fireDueReminders();
     }
 }
@@ -4,7 +4,7 @@ import java.time.LocalTime;
 import java.util.UUID;
 
 public class Appointment {
-    public final UUID id = UUID.randomUUID();
+    public final UUID id;
     public LocalDate date;
     public LocalTime time;
     public String type;          // Consultation, Surgery, Follow-up
@@ -19,6 +19,14 @@ public class Appointment {
     public Appointment(LocalDate date, LocalTime time, String type, String service,
                        String doctor, String medicalCenter, String roomType,
                        String equipment, double price) {
+        this(UUID.randomUUID(), date, time, type, service, doctor, medicalCenter, roomType, equipment, price);
+    }
+
+    /** Restores an appointment with a known id (snapshot restore, journal replay). */
+    public Appointment(UUID id, LocalDate date, LocalTime time, String type, String service,
+                       String doctor, String medicalCenter, String roomType,
+                       String equipment, double price) {
+        this.id = id;
         this.date = date; this.time = time; this.type = type; this.service = service;
         this.doctor = doctor; this.medicalCenter = medicalCenter;
         this.roomType = roomType; this.equipment = equipment; this.price = price;
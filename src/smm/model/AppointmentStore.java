@@ -0,0 +1,335 @@
+package smm.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Appointment collection behind AppModel.appointments.
+ * Keeps its indexes and a column mirror in sync:
+ *  - a UUID hash index (iteration follows insertion order, like the old list)
+ *  - a date/time-ordered navigable index for "next", "today" and range queries
+ *  - an {@link AppointmentTable} of primitive columns for bulk scans
+ *  - per-doctor and per-center-equipment schedules for double-booking checks,
+ *    and the doctors' occupancy bits in an {@link AvailabilityEngine}
+ *
+ * Appointment fields are public, so code that edits an appointment in place
+ * must call {@link #reindex(Appointment)} afterwards.
+ */
+public class AppointmentStore extends AbstractCollection<Appointment> {
+    /** Appointments have no duration of their own; each one holds its doctor/equipment this long. */
+    public static final int SLOT_MINUTES = 30;
+
+    /** Position in the ordered index; seq breaks ties between equal date/time. */
+    private record Slot(LocalDate date, LocalTime time, long seq) implements Comparable<Slot> {
+        // nulls first; written out by hand, this runs for every tree insert and lookup
+        @Override public int compareTo(Slot o) {
+            int c = compareNullsFirst(date, o.date);
+            if (c == 0) c = compareNullsFirst(time, o.time);
+            return c != 0 ? c : Long.compare(seq, o.seq);
+        }
+
+        private static <T extends Comparable<? super T>> int compareNullsFirst(T a, T b) {
+            if (a == b) return 0;
+            if (a == null) return -1;
+            if (b == null) return 1;
+            return a.compareTo(b);
+        }
+    }
+
+    /** Per-appointment bookkeeping: its tree position, table row and schedule keys. */
+    private static final class Entry {
+        final Appointment appointment;
+        Slot slot;
+        int row;
+        String doctor, resource; // keys it is scheduled under (null: not scheduled)
+
+        Entry(Appointment appointment) { this.appointment = appointment; }
+    }
+
+    private Map<UUID, Entry> byId = new LinkedHashMap<>();
+    private final NavigableMap<Slot, Appointment> byDateTime = new TreeMap<>();
+    private final AppointmentTable table = new AppointmentTable((a, row) -> byId.get(a.id).row = row);
+    // same Slot keys as byDateTime; all slots are SLOT_MINUTES long, so an overlap
+    // check is a single subMap of the starts within SLOT_MINUTES either side
+    private final Map<String, NavigableMap<Slot, Appointment>> byDoctor = new HashMap<>();
+    private final Map<String, NavigableMap<Slot, Appointment>> byResource = new HashMap<>();
+    private final AvailabilityEngine availability = new AvailabilityEngine();
+    private long nextSeq = 0;
+
+    /* ---------------- Collection ---------------- */
+
+    @Override
+    public boolean add(Appointment a) {
+        Objects.requireNonNull(a, "appointment");
+        Entry e = new Entry(a);
+        if (byId.putIfAbsent(a.id, e) != null) return false;
+        e.slot = new Slot(a.date, a.time, nextSeq++);
+        byDateTime.put(e.slot, a);
+        e.row = table.add(a);
+        schedule(e);
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Appointment a)) return false;
+        return remove(a.id) != null;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Appointment a)) return false;
+        Entry e = byId.get(a.id);
+        return e != null && e.appointment == a;
+    }
+
+    @Override public int size() { return byId.size(); }
+
+    @Override
+    public void clear() {
+        byId.clear();
+        byDateTime.clear();
+        byDoctor.clear();
+        byResource.clear();
+        availability.clear();
+        table.clear();
+    }
+
+    /** Insertion-order iterator; remove() keeps both indexes consistent. */
+    @Override
+    public Iterator<Appointment> iterator() {
+        Iterator<Entry> it = byId.values().iterator();
+        return new Iterator<>() {
+            private Entry last;
+            @Override public boolean hasNext() { return it.hasNext(); }
+            @Override public Appointment next() { return (last = it.next()).appointment; }
+            @Override public void remove() {
+                it.remove();
+                unindex(last);
+                last = null;
+            }
+        };
+    }
+
+    /* ---------------- Lookups ---------------- */
+
+    /** O(1) lookup by id, or null. */
+    public Appointment get(UUID id) {
+        Entry e = id == null ? null : byId.get(id);
+        return e == null ? null : e.appointment;
+    }
+
+    /** Removes by id and returns the removed appointment, or null. */
+    public Appointment remove(UUID id) {
+        Entry e = byId.remove(id);
+        if (e == null) return null;
+        unindex(e);
+        return e.appointment;
+    }
+
+    private void unindex(Entry e) {
+        byDateTime.remove(e.slot);
+        table.remove(e.row);
+        unschedule(e);
+    }
+
+    /** Pre-sizes an empty store for a bulk load of n appointments. */
+    void reserve(int n) {
+        if (byId.isEmpty()) byId = new LinkedHashMap<>(Math.max(16, (int) (n / 0.75f) + 1));
+        table.reserve(n);
+    }
+
+    /** Free slots of the doctors, kept up to date with every booking and reschedule. */
+    public AvailabilityEngine availability() { return availability; }
+
+    /** Column view for filter/sort/pricing scans. */
+    public AppointmentTable table() { return table; }
+
+    /** Re-syncs the indexes after an appointment was edited in place (date/time, doctor, paid, ...). */
+    public void reindex(Appointment a) {
+        Entry e = byId.get(a.id);
+        if (e == null) return;
+        table.update(e.row, a);
+        Slot old = e.slot;
+        boolean moved = !Objects.equals(old.date, a.date) || !Objects.equals(old.time, a.time);
+        if (!moved && Objects.equals(e.doctor, doctorKey(a)) && Objects.equals(e.resource, resourceKey(a))) return;
+        unschedule(e);
+        if (moved) {
+            byDateTime.remove(old);
+            e.slot = new Slot(a.date, a.time, old.seq);
+            byDateTime.put(e.slot, a);
+        }
+        schedule(e);
+    }
+
+    /* ---------------- Double-booking ---------------- */
+
+    /**
+     * Appointments that "candidate" would overlap if booked as it stands: the
+     * same doctor, or the same equipment at the same center, within SLOT_MINUTES.
+     * The candidate itself (by id) is skipped, so an edited copy of a booked
+     * appointment checks a reschedule. O(log n + k) for k conflicts.
+     */
+    public List<BookingConflict> conflicts(Appointment candidate) {
+        if (candidate.date == null || candidate.time == null) return List.of();
+        LocalDateTime start = LocalDateTime.of(candidate.date, candidate.time);
+        List<BookingConflict> out = new ArrayList<>(0);
+        overlapping(byDoctor.get(doctorKey(candidate)), start, candidate.id, BookingConflict.Resource.DOCTOR, out);
+        overlapping(byResource.get(resourceKey(candidate)), start, candidate.id, BookingConflict.Resource.CENTER, out);
+        return out;
+    }
+
+    /**
+     * conflicts() for a batch booked together: each candidate is also checked
+     * against the earlier candidates that had no conflicts (the ones the batch
+     * books). One list per candidate, in order; empty means it can be booked.
+     */
+    public List<List<BookingConflict>> conflicts(List<Appointment> candidates) {
+        Map<String, NavigableMap<Slot, Appointment>> doctors = new HashMap<>(), resources = new HashMap<>();
+        List<List<BookingConflict>> out = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            Appointment a = candidates.get(i);
+            List<BookingConflict> found = conflicts(a);
+            if (a.date != null && a.time != null) {
+                LocalDateTime start = LocalDateTime.of(a.date, a.time);
+                String doctor = doctorKey(a), resource = resourceKey(a);
+                overlapping(doctors.get(doctor), start, a.id, BookingConflict.Resource.DOCTOR, found);
+                overlapping(resources.get(resource), start, a.id, BookingConflict.Resource.CENTER, found);
+                if (found.isEmpty()) {
+                    Slot slot = new Slot(a.date, a.time, i);
+                    if (doctor != null) doctors.computeIfAbsent(doctor, k -> new TreeMap<>()).put(slot, a);
+                    if (resource != null) resources.computeIfAbsent(resource, k -> new TreeMap<>()).put(slot, a);
+                }
+            }
+            out.add(found);
+        }
+        return out;
+    }
+
+    private static void overlapping(NavigableMap<Slot, Appointment> schedule, LocalDateTime start, UUID self,
+                                    BookingConflict.Resource resource, List<BookingConflict> out) {
+        if (schedule == null) return;
+        // back-to-back slots don't clash
+        for (Appointment other : within(schedule, start, SLOT_MINUTES).values()) {
+            if (!other.id.equals(self)) out.add(new BookingConflict(other, resource));
+        }
+    }
+
+    /** Entries starting strictly inside (start - minutes, start + minutes). */
+    private static NavigableMap<Slot, Appointment> within(NavigableMap<Slot, Appointment> schedule,
+                                                          LocalDateTime start, int minutes) {
+        LocalDateTime lo = start.minusMinutes(minutes), hi = start.plusMinutes(minutes);
+        return schedule.subMap(
+                new Slot(lo.toLocalDate(), lo.toLocalTime(), Long.MAX_VALUE), false,
+                new Slot(hi.toLocalDate(), hi.toLocalTime(), Long.MIN_VALUE), false);
+    }
+
+    private void schedule(Entry e) {
+        Appointment a = e.appointment;
+        if (a.date == null || a.time == null) return;
+        e.doctor = doctorKey(a);
+        e.resource = resourceKey(a);
+        if (e.doctor != null) {
+            byDoctor.computeIfAbsent(e.doctor, k -> new TreeMap<>()).put(e.slot, a);
+            availability.occupy(e.doctor, LocalDateTime.of(a.date, a.time));
+        }
+        if (e.resource != null) byResource.computeIfAbsent(e.resource, k -> new TreeMap<>()).put(e.slot, a);
+    }
+
+    private void unschedule(Entry e) {
+        if (e.doctor != null) {
+            unschedule(byDoctor, e.doctor, e.slot);
+            // free its cells, then re-take those another (overlapping) booking still covers;
+            // cells are rounded out to CELL_MINUTES, hence the wider window
+            LocalDateTime start = LocalDateTime.of(e.slot.date, e.slot.time);
+            availability.release(e.doctor, start);
+            NavigableMap<Slot, Appointment> rest = byDoctor.get(e.doctor);
+            if (rest != null) {
+                for (Slot s : within(rest, start, SLOT_MINUTES + AvailabilityEngine.CELL_MINUTES).keySet()) {
+                    availability.occupy(e.doctor, LocalDateTime.of(s.date, s.time));
+                }
+            }
+        }
+        unschedule(byResource, e.resource, e.slot);
+        e.doctor = e.resource = null;
+    }
+
+    private static void unschedule(Map<String, NavigableMap<Slot, Appointment>> schedules, String key, Slot slot) {
+        if (key == null) return;
+        NavigableMap<Slot, Appointment> s = schedules.get(key);
+        s.remove(slot);
+        if (s.isEmpty()) schedules.remove(key);
+    }
+
+    private static String doctorKey(Appointment a) {
+        return a.doctor == null || a.doctor.isBlank() ? null : a.doctor;
+    }
+
+    /** Center + equipment; null when no equipment is needed ("—" is the dialogs' "none"). */
+    private static String resourceKey(Appointment a) {
+        if (a.medicalCenter == null || a.equipment == null || a.equipment.isBlank() || a.equipment.equals("—")) {
+            return null;
+        }
+        return a.medicalCenter + '\n' + a.equipment;
+    }
+
+    /* ---------------- Ordered views ---------------- */
+
+    /** All appointments by date then time. */
+    public Collection<Appointment> inDateOrder() {
+        return Collections.unmodifiableCollection(byDateTime.values());
+    }
+
+    /** Earliest appointment by date/time, or null when empty. */
+    public Appointment first() {
+        var e = byDateTime.firstEntry();
+        return e == null ? null : e.getValue();
+    }
+
+    /** Appointments with from <= date <= to, by date then time. */
+    public Collection<Appointment> between(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) return List.of();
+        Slot lo = floor(from);
+        Slot hi = new Slot(to, LocalTime.MAX, Long.MAX_VALUE);
+        return Collections.unmodifiableCollection(byDateTime.subMap(lo, true, hi, true).values());
+    }
+
+    /** Appointments on a single day, by time. */
+    public Collection<Appointment> on(LocalDate date) {
+        return between(date, date);
+    }
+
+    /* ---------------- Expiry ---------------- */
+
+    /**
+     * Removes and returns every appointment dated before "date", in insertion order.
+     * Polls the head of the ordered index, so the cost is O(k log k + log n) for k expired.
+     * Throws NullPointerException, changing nothing, if an appointment has no date.
+     */
+    public List<Appointment> drainBefore(LocalDate date) {
+        Objects.requireNonNull(date, "date");
+        NavigableMap<Slot, Appointment> head = byDateTime.headMap(floor(date), false);
+        if (!head.isEmpty() && head.firstKey().date == null) {
+            throw new NullPointerException("appointment " + head.firstEntry().getValue().id + " has no date");
+        }
+        List<Map.Entry<Slot, Appointment>> gone = new ArrayList<>(head.size());
+        Map.Entry<Slot, Appointment> e;
+        while ((e = head.pollFirstEntry()) != null) {
+            Entry old = byId.remove(e.getValue().id);
+            table.remove(old.row);
+            unschedule(old);
+            gone.add(e);
+        }
+        gone.sort(Comparator.comparingLong(g -> g.getKey().seq)); // seq is the insertion order
+        List<Appointment> out = new ArrayList<>(gone.size());
+        for (var g : gone) out.add(g.getValue());
+        return out;
+    }
+
+    /** Sorts before every appointment on "date" (including ones with no time). */
+    private static Slot floor(LocalDate date) {
+        return new Slot(date, null, Long.MIN_VALUE);
+    }
+}
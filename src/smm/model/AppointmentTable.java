@@ -0,0 +1,276 @@
+package smm.model;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Column mirror of an AppointmentStore, for scans that would otherwise chase
+ * pointers through Appointment objects (list filters, sorts, pricing).
+ *
+ * One row per appointment in parallel primitive arrays: epoch day, minute of
+ * day, dictionary ids for the six text fields, price and a paid bit. Removed
+ * rows are tombstoned and compacted later, so rows stay in insertion order.
+ * The store keeps it in sync; Appointment stays the editable object, and
+ * in-place edits reach the table through AppointmentStore.reindex.
+ *
+ * Readers off the EDT work on a {@link #snapshot()}. A snapshot is kept
+ * until the next change, so repeated queries over an unchanged table (a
+ * filter re-run per keystroke) share one copy instead of copying every column.
+ */
+public class AppointmentTable {
+    /** Day stored for a missing date (sorts first); dates are clamped to +-5700 years. */
+    static final int NO_DAY = -(1 << 21);
+    private static final int MAX_DAY = (1 << 21) - 1;
+    private static final short NO_MINUTE = -1;
+    private static final int MAX_MINUTE = 24 * 60 - 1;
+
+    private int rows, dead;
+    private int[] day = new int[16];
+    private short[] minute = new short[16];
+    private int[] type = new int[16], service = new int[16], doctor = new int[16],
+                  center = new int[16], room = new int[16], equipment = new int[16];
+    private double[] price = new double[16];
+    private BitSet paid = new BitSet(), live = new BitSet();
+    private Appointment[] refs = new Appointment[16];
+    private final RowListener moved;
+    private Snapshot frozen; // the last snapshot, while nothing changed since
+
+    private final List<String> dict = new ArrayList<>();
+    private final Map<String, Integer> dictIds = new HashMap<>();
+
+    /** Told the new row of an appointment whose row changed in a compaction. */
+    interface RowListener { void rowMoved(Appointment a, int row); }
+
+    AppointmentTable(RowListener moved) { this.moved = moved; }
+
+    public int size() { return rows - dead; }
+
+    /* ---------------- Maintenance (by the store) ---------------- */
+
+    /** Appends a row and returns its number (stable until a compaction reports a move). */
+    int add(Appointment a) {
+        if (rows == day.length) grow(day.length * 2);
+        int r = rows++;
+        frozen = null;
+        refs[r] = a;
+        live.set(r);
+        write(r, a);
+        return r;
+    }
+
+    void update(int r, Appointment a) {
+        frozen = null;
+        write(r, a);
+    }
+
+    void remove(int r) {
+        frozen = null;
+        live.clear(r);
+        refs[r] = null;
+        if (++dead > 32 && dead > rows - dead) compact();
+    }
+
+    void clear() {
+        frozen = null;
+        rows = dead = 0;
+        Arrays.fill(refs, null);
+        live.clear();
+        paid.clear();
+    }
+
+    /** Room for n rows; grows at least 2x so repeated batch reserves stay amortized O(1). */
+    void reserve(int n) {
+        if (n > day.length) grow(Math.max(n, day.length * 2));
+    }
+
+    private void write(int r, Appointment a) {
+        day[r] = a.date == null ? NO_DAY : (int) Math.max(NO_DAY + 1, Math.min(MAX_DAY, a.date.toEpochDay()));
+        minute[r] = a.time == null ? NO_MINUTE : (short) (a.time.getHour() * 60 + a.time.getMinute());
+        type[r] = id(a.type);
+        service[r] = id(a.service);
+        doctor[r] = id(a.doctor);
+        center[r] = id(a.medicalCenter);
+        room[r] = id(a.roomType);
+        equipment[r] = id(a.equipment);
+        price[r] = a.price;
+        paid.set(r, a.paid);
+    }
+
+    private int id(String s) {
+        Integer id = dictIds.get(s);
+        if (id == null) {
+            id = dict.size();
+            dict.add(s);
+            dictIds.put(s, id);
+        }
+        return id;
+    }
+
+    private void grow(int cap) {
+        day = Arrays.copyOf(day, cap);
+        minute = Arrays.copyOf(minute, cap);
+        type = Arrays.copyOf(type, cap);
+        service = Arrays.copyOf(service, cap);
+        doctor = Arrays.copyOf(doctor, cap);
+        center = Arrays.copyOf(center, cap);
+        room = Arrays.copyOf(room, cap);
+        equipment = Arrays.copyOf(equipment, cap);
+        price = Arrays.copyOf(price, cap);
+        refs = Arrays.copyOf(refs, cap);
+    }
+
+    /** Squeezes out tombstones, keeping row order. */
+    private void compact() {
+        int w = 0;
+        for (int r = live.nextSetBit(0); r >= 0 && r < rows; r = live.nextSetBit(r + 1), w++) {
+            if (r == w) continue;
+            day[w] = day[r]; minute[w] = minute[r];
+            type[w] = type[r]; service[w] = service[r]; doctor[w] = doctor[r];
+            center[w] = center[r]; room[w] = room[r]; equipment[w] = equipment[r];
+            price[w] = price[r];
+            paid.set(w, paid.get(r));
+            refs[w] = refs[r];
+            moved.rowMoved(refs[w], w);
+        }
+        Arrays.fill(refs, w, rows, null);
+        live.clear(w, rows);
+        live.set(0, w);
+        paid.clear(w, rows);
+        rows = w;
+        dead = 0;
+    }
+
+    /* ---------------- Snapshot ---------------- */
+
+    /** Immutable copy of the live rows, safe to scan on another thread; the same one until the table changes. */
+    public Snapshot snapshot() {
+        if (frozen != null) return frozen;
+        if (dead > 0) compact();
+        return frozen = new Snapshot(this);
+    }
+
+    /** Frozen columns; row numbers are only meaningful within one snapshot. */
+    public static final class Snapshot {
+        private final int n;
+        private final int[] day;
+        private final short[] minute;
+        private final int[] type, service, doctor, center, room, equipment;
+        private final double[] price;
+        private final BitSet paid;
+        private final Appointment[] refs;
+        private final String[] dict;
+
+        private Snapshot(AppointmentTable t) {
+            n = t.rows;
+            day = Arrays.copyOf(t.day, n);
+            minute = Arrays.copyOf(t.minute, n);
+            type = Arrays.copyOf(t.type, n);
+            service = Arrays.copyOf(t.service, n);
+            doctor = Arrays.copyOf(t.doctor, n);
+            center = Arrays.copyOf(t.center, n);
+            room = Arrays.copyOf(t.room, n);
+            equipment = Arrays.copyOf(t.equipment, n);
+            price = Arrays.copyOf(t.price, n);
+            paid = (BitSet) t.paid.clone();
+            refs = Arrays.copyOf(t.refs, n);
+            dict = t.dict.toArray(new String[0]);
+        }
+
+        public int size() { return n; }
+
+        /* ----- row access (views over the columns) ----- */
+
+        public UUID id(int r) { return refs[r].id; }
+        public LocalDate date(int r) { return day[r] == NO_DAY ? null : LocalDate.ofEpochDay(day[r]); }
+        public LocalTime time(int r) { return minute[r] < 0 ? null : LocalTime.of(minute[r] / 60, minute[r] % 60); }
+        public String type(int r) { return dict[type[r]]; }
+        public String service(int r) { return dict[service[r]]; }
+        public String doctor(int r) { return dict[doctor[r]]; }
+        public String center(int r) { return dict[center[r]]; }
+        public String roomType(int r) { return dict[room[r]]; }
+        public String equipment(int r) { return dict[equipment[r]]; }
+        public double price(int r) { return price[r]; }
+        public boolean paid(int r) { return paid.get(r); }
+
+        /* ----- scans ----- */
+
+        /**
+         * Rows dated from..to (inclusive), of the given type (ignoring case; null = any)
+         * whose doctor contains doctorQuery (lowercase; empty = any), in insertion order.
+         * Text tests run once per distinct value, the row loop only reads int columns.
+         */
+        public int[] select(LocalDate from, LocalDate to, String wantType, String doctorQuery) {
+            long lo = from.toEpochDay(), hi = to.toEpochDay();
+            boolean[] typeOk = mask(t -> wantType == null || wantType.equalsIgnoreCase(t));
+            boolean[] doctorOk = mask(d -> doctorQuery.isEmpty() || (d != null && d.toLowerCase().contains(doctorQuery)));
+            int[] out = new int[n];
+            int k = 0;
+            for (int r = 0; r < n; r++) {
+                int d = day[r];
+                if (d != NO_DAY && d >= lo && d <= hi && typeOk[type[r]] && doctorOk[doctor[r]]) out[k++] = r;
+            }
+            return Arrays.copyOf(out, k);
+        }
+
+        /** Stable sort by date then time (ties keep their order, i.e. insertion order). */
+        public int[] sortByDateTime(int[] rows) { return sortByDateTime(rows, false); }
+
+        /** Stable sort by date then time, latest first (ties still keep insertion order). */
+        public int[] sortByDateTimeDescending(int[] rows) { return sortByDateTime(rows, true); }
+
+        private int[] sortByDateTime(int[] rows, boolean descending) {
+            long[] keys = new long[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                int r = rows[i];
+                // only the date/time fields are flipped, the index stays ascending
+                long d = descending ? MAX_DAY - day[r] : day[r] - NO_DAY;
+                long m = descending ? MAX_MINUTE - minute[r] : minute[r] + 1;
+                keys[i] = (d << 41) | (m << 30) | i;
+            }
+            return reorder(rows, keys);
+        }
+
+        /** Stable sort by type text (String order). */
+        public int[] sortByType(int[] rows) { return sortByText(rows, type); }
+
+        /** Stable sort by doctor text (String order). */
+        public int[] sortByDoctor(int[] rows) { return sortByText(rows, doctor); }
+
+        /** Amount to pay for each row, same arithmetic as AppModel.priceAfterPlan. */
+        public double[] pricesAfterPlan(int[] rows, InsuranceLevel insurance, AppModel.PricingType pricing) {
+            double[] out = new double[rows.length];
+            PricingEngine.priceRows(price, rows, out, insurance, pricing);
+            return out;
+        }
+
+        private int[] sortByText(int[] rows, int[] column) {
+            // rank dictionary ids by text once, then sort primitive keys
+            Integer[] ids = new Integer[dict.length];
+            for (int i = 0; i < ids.length; i++) ids[i] = i;
+            Arrays.sort(ids, Comparator.comparing(i -> dict[i], Comparator.nullsFirst(Comparator.naturalOrder())));
+            int[] rank = new int[dict.length];
+            for (int i = 0, rk = -1; i < ids.length; i++) {
+                if (i == 0 || !Objects.equals(dict[ids[i]], dict[ids[i - 1]])) rk++;
+                rank[ids[i]] = rk;
+            }
+            long[] keys = new long[rows.length];
+            for (int i = 0; i < rows.length; i++) keys[i] = ((long) rank[column[rows[i]]] << 31) | i;
+            return reorder(rows, keys);
+        }
+
+        private boolean[] mask(java.util.function.Predicate<String> test) {
+            boolean[] m = new boolean[dict.length];
+            for (int i = 0; i < m.length; i++) m[i] = test.test(dict[i]);
+            return m;
+        }
+
+        /** Sorts keys whose low 30 bits are the index into rows, and applies that order. */
+        private static int[] reorder(int[] rows, long[] keys) {
+            Arrays.sort(keys);
+            int[] out = new int[rows.length];
+            for (int i = 0; i < keys.length; i++) out[i] = rows[(int) (keys[i] & ((1 << 30) - 1))];
+            return out;
+        }
+    }
+}
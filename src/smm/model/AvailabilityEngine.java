@@ -0,0 +1,159 @@
+package smm.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Free-slot finder over per-doctor occupancy bitsets.
+ *
+ * Each doctor has one bit per CELL_MINUTES, days laid end to end (96 cells a
+ * day); a set bit means the doctor is booked for (part of) that cell. An
+ * appointment takes the cells covering [time, time + SLOT_MINUTES), so one
+ * starting 23:50 spills into the next day. The AppointmentStore keeps the bits
+ * in step with its doctor schedules on every add, remove and reschedule.
+ *
+ * Free slots start on cell boundaries between OPENS and CLOSES and need
+ * SLOT_MINUTES of free cells. A day's opening hours fit in one long, so a
+ * doctor's free starts for a day are a couple of shifts and ANDs.
+ */
+public class AvailabilityEngine {
+    public static final int CELL_MINUTES = 15;
+    public static final LocalTime OPENS = LocalTime.of(8, 0), CLOSES = LocalTime.of(18, 0);
+    /** How many days nextFree looks ahead before giving up. */
+    public static final int HORIZON_DAYS = 366;
+
+    static final int CELLS_PER_DAY = 24 * 60 / CELL_MINUTES;
+    private static final int OPEN_CELL = OPENS.toSecondOfDay() / 60 / CELL_MINUTES;
+    private static final int OPEN_CELLS = CLOSES.toSecondOfDay() / 60 / CELL_MINUTES - OPEN_CELL; // <= 64
+    private static final int SLOT_CELLS = AppointmentStore.SLOT_MINUTES / CELL_MINUTES;
+    /** Bit i set: a slot may start at cell OPEN_CELL + i and still end by CLOSES. */
+    private static final long STARTS = -1L >>> (64 - (OPEN_CELLS - SLOT_CELLS + 1));
+
+    /** A bookable slot: the doctor is free from date/time for SLOT_MINUTES. */
+    public record FreeSlot(String doctor, LocalDate date, LocalTime time) {
+        @Override public String toString() { return date + " " + time + " • " + doctor; }
+    }
+
+    /** One doctor's cells from firstDay on; words outside the array are all free. */
+    private static final class Days {
+        long firstDay;
+        long[] words = new long[0];
+
+        Days(long firstDay) { this.firstDay = firstDay; }
+
+        long word(long i) {
+            return i < 0 || i >= words.length ? 0L : words[(int) i];
+        }
+
+        /** len (<= 64) cells starting at cell "from" (counted from firstDay), bit 0 first. */
+        long cells(long from, int len) {
+            long i = Math.floorDiv(from, 64);
+            int sh = Math.floorMod(from, 64);
+            long bits = word(i) >>> sh;
+            if (sh != 0) bits |= word(i + 1) << (64 - sh);
+            return len == 64 ? bits : bits & ((1L << len) - 1);
+        }
+
+        /** Makes room for days [from, to]; firstDay only moves by whole pairs of days (3 words). */
+        void cover(long from, long to) {
+            if (from < firstDay) {
+                long shiftDays = 2 * ((firstDay - from + 1) / 2) + 2 * 30; // and a month of slack
+                int shiftWords = (int) (shiftDays * CELLS_PER_DAY / 64);
+                long[] grown = new long[words.length + shiftWords];
+                System.arraycopy(words, 0, grown, shiftWords, words.length);
+                words = grown;
+                firstDay -= shiftDays;
+            }
+            long need = ((to + 1 - firstDay) * CELLS_PER_DAY + 63) / 64;
+            if (need > words.length) {
+                words = Arrays.copyOf(words, (int) Math.max(need, words.length + words.length / 2));
+            }
+        }
+
+        void set(long cell, boolean taken) {
+            int i = (int) (cell >>> 6);
+            if (taken) words[i] |= 1L << cell;
+            else words[i] &= ~(1L << cell);
+        }
+    }
+
+    private final Map<String, Days> byDoctor = new HashMap<>();
+
+    /* ---------------- Maintenance (by the store; public for the benchmarks) ---------------- */
+
+    /** Marks the doctor busy for the slot starting at "start". */
+    public void occupy(String doctor, LocalDateTime start) {
+        Days d = byDoctor.computeIfAbsent(doctor, k -> new Days(start.toLocalDate().toEpochDay()));
+        mark(d, start, true);
+    }
+
+    /** Frees the cells of the slot at "start"; the store re-occupies any other booking overlapping them. */
+    public void release(String doctor, LocalDateTime start) {
+        Days d = byDoctor.get(doctor);
+        if (d != null) mark(d, start, false);
+    }
+
+    void clear() { byDoctor.clear(); }
+
+    private static void mark(Days d, LocalDateTime start, boolean taken) {
+        long day = start.toLocalDate().toEpochDay();
+        int minute = start.toLocalTime().toSecondOfDay() / 60;
+        int fromCell = minute / CELL_MINUTES;
+        int toCell = (minute + AppointmentStore.SLOT_MINUTES + CELL_MINUTES - 1) / CELL_MINUTES; // exclusive
+        d.cover(day, day + (toCell - 1) / CELLS_PER_DAY);
+        long base = (day - d.firstDay) * CELLS_PER_DAY;
+        for (int c = fromCell; c < toCell; c++) d.set(base + c, taken);
+    }
+
+    /* ---------------- Queries ---------------- */
+
+    /**
+     * The first n free slots among "doctors" that start at or after "from",
+     * earliest first (ties in the order the doctors are given). Looks at most
+     * HORIZON_DAYS ahead, so it may return fewer than n.
+     */
+    public List<FreeSlot> nextFree(Collection<String> doctors, LocalDateTime from, int n) {
+        List<FreeSlot> out = new ArrayList<>(Math.max(0, Math.min(n, 64)));
+        if (n <= 0 || doctors.isEmpty()) return out;
+        String[] names = doctors.toArray(new String[0]);
+        Days[] days = new Days[names.length];
+        for (int k = 0; k < names.length; k++) days[k] = byDoctor.get(names[k]);
+        long[] starts = new long[names.length];
+
+        long firstDay = from.toLocalDate().toEpochDay();
+        int fromMinute = (from.toLocalTime().toSecondOfDay() + 59) / 60;
+        int firstStart = (fromMinute + CELL_MINUTES - 1) / CELL_MINUTES - OPEN_CELL;
+        for (long day = firstDay; day < firstDay + HORIZON_DAYS && out.size() < n; day++) {
+            long allowed = day != firstDay || firstStart <= 0 ? STARTS
+                    : firstStart >= 64 ? 0L : STARTS & (-1L << firstStart);
+            long any = 0;
+            for (int k = 0; k < days.length; k++) {
+                starts[k] = freeStarts(days[k], day) & allowed;
+                any |= starts[k];
+            }
+            // cells in time order; at each, the doctors free there in the order given
+            while (any != 0 && out.size() < n) {
+                int cell = Long.numberOfTrailingZeros(any);
+                any &= any - 1;
+                LocalDate date = null;
+                for (int k = 0; k < days.length && out.size() < n; k++) {
+                    if ((starts[k] & (1L << cell)) == 0) continue;
+                    if (date == null) date = LocalDate.ofEpochDay(day);
+                    out.add(new FreeSlot(names[k], date, OPENS.plusMinutes((long) cell * CELL_MINUTES)));
+                }
+            }
+        }
+        return out;
+    }
+
+    /** Opening-hours cells of "day" where a slot could start, as STARTS bits. */
+    private static long freeStarts(Days d, long day) {
+        if (d == null) return STARTS;
+        long free = ~d.cells((day - d.firstDay) * CELLS_PER_DAY + OPEN_CELL, OPEN_CELLS);
+        long starts = free;
+        for (int k = 1; k < SLOT_CELLS; k++) starts &= free >>> k;
+        return starts & STARTS;
+    }
+}
@@ -0,0 +1,20 @@
+package smm.model;
+
+/** An existing appointment that a booking or reschedule would overlap. */
+public record BookingConflict(Appointment with, Resource resource) {
+
+    /** What the two appointments would both need at once. */
+    public enum Resource {
+        /** the same doctor */
+        DOCTOR,
+        /** the same equipment (CT scanner, ECG, ...) at the same medical center */
+        CENTER
+    }
+
+    public String describe() {
+        return switch (resource) {
+            case DOCTOR -> with.doctor + " is booked " + with.date + " " + with.time + " (" + with.type + ")";
+            case CENTER -> with.equipment + " @ " + with.medicalCenter + " is booked " + with.date + " " + with.time;
+        };
+    }
+}
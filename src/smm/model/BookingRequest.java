@@ -0,0 +1,18 @@
+package smm.model;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/** One booking of a batch (Controller.createBookings); same fields as Controller.createBooking. */
+public record BookingRequest(LocalDate date, LocalTime time, String type, String service,
+                             String doctor, String center, String room, String equipment,
+                             double basePrice, boolean addToCalendar, boolean payNow) {
+
+    /** Why this request cannot be booked, or null if it can. */
+    public String problem() {
+        if (date == null || time == null) return "date and time are required";
+        if (doctor == null || doctor.isBlank()) return "no doctor";
+        if (!Double.isFinite(basePrice) || basePrice < 0) return "invalid base price " + basePrice;
+        return null;
+    }
+}
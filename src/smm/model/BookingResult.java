@@ -0,0 +1,15 @@
+package smm.model;
+
+import java.util.List;
+
+/** Outcome of a checked booking: the new appointment, or the conflicts that stopped it. */
+public record BookingResult(Appointment appointment, List<BookingConflict> conflicts) {
+
+    public static BookingResult booked(Appointment a) { return new BookingResult(a, List.of()); }
+
+    public static BookingResult rejected(List<BookingConflict> conflicts) {
+        return new BookingResult(null, List.copyOf(conflicts));
+    }
+
+    public boolean isBooked() { return appointment != null; }
+}
@@ -0,0 +1,181 @@
+package smm.model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Doctor catalog: who offers which service, at what base price.
+ *
+ * Loaded from a text file, one "service;doctor;price" per line ('#' starts a
+ * comment). A doctor may be listed under several services; the last price
+ * given wins. Immutable once built, so a new catalog replaces an old one with
+ * a single reference write.
+ *
+ * Doctors get dense ids in file order: prices sit in a double[] by id and each
+ * service keeps its doctors as a list and a BitSet of ids. Typeahead runs on a
+ * sorted array of lower-case keys (the full name and every word start, so
+ * "mar" finds "Dr. Martin"): a binary search plus a walk over the matches,
+ * with no per-keystroke scan of the catalog.
+ */
+public final class DoctorRegistry {
+    /** Base price of a doctor the catalog doesn't know. */
+    public static final double DEFAULT_PRICE = 100.0;
+
+    private static final String BUILT_IN = """
+            # service;doctor;price
+            Dermatology;Dr. Martin;120
+            Dermatology;Dr. Lambert;100
+            Dermatology;Dr. Rossi;130
+            Cardiology;Dr. Duval;150
+            Cardiology;Dr. Bernard;110
+            Cardiology;Dr. Kassis;115
+            Radiology;Dr. Selim;140
+            Radiology;Dr. Pereira;125
+            General;Dr. Smith;90
+            General;Dr. Patel;100
+            General;Dr. Garcia;95
+            """;
+
+    private final String[] names;
+    private final double[] prices;
+    private final Map<String, Integer> ids;
+    private final Map<String, List<String>> doctorsByService;
+    private final Map<String, BitSet> idsByService;
+    private final String[] keys;   // sorted
+    private final int[] keyIds;    // doctor id of keys[i]
+
+    private DoctorRegistry(List<String> names, double[] prices, Map<String, List<String>> doctorsByService,
+                           Map<String, BitSet> idsByService) {
+        this.names = names.toArray(new String[0]);
+        this.prices = prices;
+        this.ids = new HashMap<>(Math.max(16, (int) (names.size() / 0.75f) + 1));
+        for (int i = 0; i < this.names.length; i++) ids.put(this.names[i], i);
+        this.doctorsByService = doctorsByService;
+        this.idsByService = idsByService;
+
+        List<Map.Entry<String, Integer>> k = new ArrayList<>(this.names.length * 2);
+        for (int i = 0; i < this.names.length; i++) {
+            String lower = this.names[i].toLowerCase(Locale.ROOT);
+            for (int p = 0; p < lower.length(); p++) {
+                if ((p == 0 || lower.charAt(p - 1) == ' ') && lower.charAt(p) != ' ') k.add(Map.entry(lower.substring(p), i));
+            }
+        }
+        k.sort(Map.Entry.comparingByKey());
+        keys = new String[k.size()];
+        keyIds = new int[k.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = k.get(i).getKey();
+            keyIds[i] = k.get(i).getValue();
+        }
+    }
+
+    /* ---------------- Loading ---------------- */
+
+    /** The catalog the app shipped with before it could load one. */
+    public static DoctorRegistry builtIn() {
+        try {
+            return parse(BUILT_IN.lines().toList(), "built-in catalog");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Reads a "service;doctor;price" file (UTF-8). */
+    public static DoctorRegistry load(Path file) throws IOException {
+        return parse(Files.readAllLines(file, StandardCharsets.UTF_8), file.toString());
+    }
+
+    /** @throws IOException naming the source and line of the first malformed entry */
+    public static DoctorRegistry parse(List<String> lines, String source) throws IOException {
+        List<String> names = new ArrayList<>();
+        Map<String, Integer> ids = new HashMap<>();
+        double[] prices = new double[16];
+        Map<String, List<String>> byService = new LinkedHashMap<>();
+        Map<String, BitSet> idsByService = new HashMap<>();
+        for (int n = 0; n < lines.size(); n++) {
+            String line = lines.get(n);
+            int hash = line.indexOf('#');
+            if (hash >= 0) line = line.substring(0, hash);
+            if (line.isBlank()) continue;
+            String[] f = line.split(";", -1);
+            if (f.length != 3 || f[0].isBlank() || f[1].isBlank()) {
+                throw new IOException(source + ":" + (n + 1) + ": expected service;doctor;price");
+            }
+            String service = f[0].trim(), doctor = f[1].trim();
+            double price;
+            try {
+                price = Double.parseDouble(f[2].trim());
+            } catch (NumberFormatException e) {
+                throw new IOException(source + ":" + (n + 1) + ": bad price '" + f[2].trim() + "'");
+            }
+            if (!Double.isFinite(price) || price < 0) throw new IOException(source + ":" + (n + 1) + ": bad price " + price);
+
+            Integer id = ids.get(doctor);
+            if (id == null) {
+                id = names.size();
+                ids.put(doctor, id);
+                names.add(doctor);
+                if (id == prices.length) prices = Arrays.copyOf(prices, prices.length * 2);
+            }
+            prices[id] = price;
+            BitSet members = idsByService.computeIfAbsent(service, s -> new BitSet());
+            if (!members.get(id)) {
+                members.set(id);
+                byService.computeIfAbsent(service, s -> new ArrayList<>()).add(doctor);
+            }
+        }
+        byService.replaceAll((s, list) -> List.copyOf(list));
+        return new DoctorRegistry(names, Arrays.copyOf(prices, names.size()),
+                Collections.unmodifiableMap(byService), idsByService);
+    }
+
+    /* ---------------- Lookups ---------------- */
+
+    public int size() { return names.length; }
+
+    /** Services in catalog order. */
+    public Set<String> services() { return doctorsByService.keySet(); }
+
+    /** Doctors offering a service, in catalog order (empty if none). */
+    public List<String> doctorsFor(String service) {
+        return doctorsByService.getOrDefault(service, List.of());
+    }
+
+    public boolean knows(String doctor) { return ids.containsKey(doctor); }
+
+    /** Base price of a doctor, or DEFAULT_PRICE if unknown. */
+    public double price(String doctor) {
+        Integer id = doctor == null ? null : ids.get(doctor);
+        return id == null ? DEFAULT_PRICE : prices[id];
+    }
+
+    /* ---------------- Typeahead ---------------- */
+
+    /** Up to "limit" doctors whose name, or a word of it, starts with "prefix" (case-insensitive). */
+    public List<String> complete(String prefix, int limit) {
+        return complete(prefix, null, limit);
+    }
+
+    /** Same, restricted to the doctors of a service (any service if null). */
+    public List<String> complete(String prefix, String service, int limit) {
+        String p = prefix == null ? "" : prefix.strip().toLowerCase(Locale.ROOT);
+        BitSet members = service == null ? null : idsByService.get(service);
+        if (limit <= 0 || (service != null && members == null)) return List.of();
+
+        int i = Arrays.binarySearch(keys, p);
+        if (i < 0) i = -i - 1;
+        List<String> out = new ArrayList<>(Math.min(limit, 16));
+        BitSet seen = new BitSet();
+        for (; i < keys.length && out.size() < limit && keys[i].startsWith(p); i++) {
+            int id = keyIds[i];
+            if ((members == null || members.get(id)) && !seen.get(id)) {
+                seen.set(id);
+                out.add(names[id]);
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,230 @@
+package smm.model;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * History list behind AppModel.history.
+ * Append-only (records are never removed or reordered) and stored by column:
+ *  - date as an epoch-day int[]
+ *  - kind as a byte[] code into a small dictionary (at most 256 kinds)
+ *  - details as an int[] id into a dictionary of distinct texts, so the
+ *    repeated "Completed: … with … @ …" lines are stored once
+ * get() materializes a HistoryRecord on demand; records are immutable and
+ * compare by value, so contains() and indexOf() find an equal record.
+ *
+ * Indexes are maintained on every add:
+ *  - n-gram postings (grams of 1..3 chars, lowercased) over the distinct texts
+ *    answer substring queries: short queries read one posting list, longer
+ *    ones intersect the postings of their trigrams and verify the candidates
+ *  - a sorted token dictionary over the same texts answers word-prefix queries
+ *  - record ids kept sorted by date answer range queries ("what happened
+ *    between d1 and d2"); appends in date order, the usual case, are O(1)
+ */
+public class HistoryLog extends AbstractList<HistoryRecord> implements RandomAccess {
+    private static final int GRAM = 3;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    /* columns: one entry per record */
+    private int size;
+    private int[] days = new int[16];
+    private byte[] kinds = new byte[16];
+    private int[] details = new int[16];
+    private int[] byDate = new int[16];   // record ids by (date, id); undated records first
+
+    /* dictionaries */
+    private final List<String> kindNames = new ArrayList<>();
+    private final Map<String, Integer> kindCodes = new HashMap<>();
+    private final List<String> texts = new ArrayList<>();            // kinds and details
+    private final Map<String, Integer> textIds = new HashMap<>();
+    private final List<IntList> textRecords = new ArrayList<>();     // text id -> records using it
+
+    /* search indexes over text ids */
+    private final Map<String, IntList> grams = new HashMap<>();
+    private final NavigableMap<String, IntList> tokens = new TreeMap<>();
+
+    /* ---------------- List ---------------- */
+
+    /** A fresh copy of record i (equal to every other copy of it). */
+    @Override
+    public HistoryRecord get(int i) {
+        Objects.checkIndex(i, size);
+        return new HistoryRecord(
+                days[i] == NO_DATE ? null : LocalDate.ofEpochDay(days[i]),
+                kindNames.get(kinds[i] & 0xFF),
+                texts.get(details[i]));
+    }
+
+    @Override public int size() { return size; }
+
+    /** Appends and indexes; insertion anywhere but the end is not supported. */
+    @Override
+    public void add(int index, HistoryRecord r) {
+        if (index != size) throw new UnsupportedOperationException("history is append-only");
+        Objects.requireNonNull(r, "record");
+        if (size == days.length) {
+            int cap = size * 2;
+            days = Arrays.copyOf(days, cap);
+            kinds = Arrays.copyOf(kinds, cap);
+            details = Arrays.copyOf(details, cap);
+            byDate = Arrays.copyOf(byDate, cap);
+        }
+        int id = size;
+        days[id] = r.date == null ? NO_DATE : (int) r.date.toEpochDay();
+        kinds[id] = kindCode(r.kind);
+        textId(r.kind, id);
+        details[id] = textId(r.details, id);
+        // ids after all records with day <= this one; only out-of-order dates shift the tail
+        int pos = dateBound(days[id] + 1L);
+        System.arraycopy(byDate, pos, byDate, pos + 1, size - pos);
+        byDate[pos] = id;
+        size++;
+        modCount++;
+    }
+
+    /* ---------------- Queries ---------------- */
+
+    /**
+     * Records whose kind or details contain q (case-insensitive), in insertion order.
+     * Same matches as a lowercase contains() over both fields; empty q returns all.
+     */
+    public List<HistoryRecord> search(String q) {
+        q = q.toLowerCase();
+        if (q.isEmpty()) return new ArrayList<>(this);
+        if (q.length() <= GRAM) return recordsOf(grams.get(q));
+
+        IntList[] lists = new IntList[q.length() - GRAM + 1];
+        for (int i = 0; i < lists.length; i++) {
+            IntList l = grams.get(q.substring(i, i + GRAM));
+            if (l == null) return new ArrayList<>();
+            lists[i] = l;
+        }
+        Arrays.sort(lists, Comparator.comparingInt(l -> l.size));
+        IntList hits = new IntList();
+        IntList first = lists[0];
+        next:
+        for (int k = 0; k < first.size; k++) {
+            int text = first.data[k];
+            for (int j = 1; j < lists.length; j++) {
+                if (!lists[j].contains(text)) continue next;
+            }
+            if (texts.get(text).toLowerCase().contains(q)) hits.add(text);
+        }
+        return recordsOf(hits);
+    }
+
+    /** Records dated from..to inclusive, by date then insertion order. */
+    public List<HistoryRecord> between(LocalDate from, LocalDate to) {
+        List<HistoryRecord> out = new ArrayList<>();
+        if (from.isAfter(to)) return out;
+        int end = dateBound(to.toEpochDay() + 1);
+        for (int k = dateBound(from.toEpochDay()); k < end; k++) out.add(get(byDate[k]));
+        return out;
+    }
+
+    /** First position in byDate whose day is >= "day". */
+    private int dateBound(long day) {
+        int lo = 0, hi = size;
+        if (hi > 0 && days[byDate[hi - 1]] < day) return hi; // appending in date order
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (days[byDate[mid]] < day) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Records having a word that starts with prefix (case-insensitive), in insertion order. */
+    public List<HistoryRecord> withPrefix(String prefix) {
+        prefix = prefix.toLowerCase();
+        if (prefix.isEmpty()) return new ArrayList<>(this);
+        IntList hits = new IntList();
+        for (IntList l : tokens.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            for (int k = 0; k < l.size; k++) hits.add(l.data[k]);
+        }
+        return recordsOf(hits);
+    }
+
+    /** Records using any of the given texts, in insertion order. */
+    private List<HistoryRecord> recordsOf(IntList textHits) {
+        List<HistoryRecord> out = new ArrayList<>();
+        if (textHits == null) return out;
+        IntList ids = new IntList();
+        for (int k = 0; k < textHits.size; k++) {
+            IntList l = textRecords.get(textHits.data[k]);
+            for (int j = 0; j < l.size; j++) ids.add(l.data[j]);
+        }
+        Arrays.sort(ids.data, 0, ids.size);
+        int last = -1;
+        for (int k = 0; k < ids.size; k++) {
+            int id = ids.data[k];
+            if (id != last) out.add(get(id));
+            last = id;
+        }
+        return out;
+    }
+
+    /* ---------------- Dictionaries and indexing ---------------- */
+
+    private byte kindCode(String kind) {
+        Integer code = kindCodes.get(kind);
+        if (code == null) {
+            if (kindNames.size() == 256) throw new IllegalStateException("more than 256 history kinds");
+            code = kindNames.size();
+            kindNames.add(kind);
+            kindCodes.put(kind, code);
+        }
+        return (byte) (int) code;
+    }
+
+    /** Dictionary id of a text, indexing it on first sight; links it to the record. */
+    private int textId(String text, int record) {
+        Integer id = textIds.get(text);
+        if (id == null) {
+            id = texts.size();
+            texts.add(text);
+            textIds.put(text, id);
+            textRecords.add(new IntList());
+            index(id, text);
+        }
+        textRecords.get(id).addOnce(record);
+        return id;
+    }
+
+    private void index(int id, String text) {
+        if (text == null || text.isEmpty()) return;
+        String s = text.toLowerCase();
+        for (int i = 0; i < s.length(); i++) {
+            for (int n = 1; n <= GRAM && i + n <= s.length(); n++) {
+                grams.computeIfAbsent(s.substring(i, i + n), k -> new IntList()).addOnce(id);
+            }
+        }
+        int start = -1;
+        for (int i = 0; i <= s.length(); i++) {
+            boolean word = i < s.length() && Character.isLetterOrDigit(s.charAt(i));
+            if (word && start < 0) start = i;
+            else if (!word && start >= 0) {
+                tokens.computeIfAbsent(s.substring(start, i), k -> new IntList()).addOnce(id);
+                start = -1;
+            }
+        }
+    }
+
+    /** Growable int array; ids are appended in increasing order. */
+    private static final class IntList {
+        int[] data = new int[2];
+        int size;
+
+        void add(int v) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = v;
+        }
+
+        void addOnce(int v) {
+            if (size == 0 || data[size - 1] != v) add(v);
+        }
+
+        boolean contains(int v) {
+            return Arrays.binarySearch(data, 0, size, v) >= 0;
+        }
+    }
+}
@@ -1,12 +1,23 @@
 package smm.model;
 import java.time.LocalDate;
+import java.util.Objects;
 
-public class HistoryRecord {
-    public LocalDate date;
-    public String kind;    // Consultation , Surgery , Prescription
-    public String details;
+/** One history line. Immutable, with value equality: HistoryLog hands out fresh copies. */
+public final class HistoryRecord {
+    public final LocalDate date;
+    public final String kind;    // Consultation , Surgery , Prescription
+    public final String details;
 
     public HistoryRecord(LocalDate date, String kind, String details) {
         this.date = date; this.kind = kind; this.details = details;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof HistoryRecord r
+                && Objects.equals(date, r.date) && Objects.equals(kind, r.kind) && Objects.equals(details, r.details);
+    }
+
+    @Override
+    public int hashCode() { return Objects.hash(date, kind, details); }
 }
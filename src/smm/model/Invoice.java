@@ -3,13 +3,19 @@ import java.time.LocalDate;
 import java.util.UUID;
 
 public class Invoice {
-    public final UUID id = UUID.randomUUID();
+    public final UUID id;
     public LocalDate issuedOn;
     public double amount;
     public boolean paid;
     public UUID appointmentId; // optional link
 
     public Invoice(LocalDate issuedOn, double amount, boolean paid, UUID appointmentId) {
+        this(UUID.randomUUID(), issuedOn, amount, paid, appointmentId);
+    }
+
+    /** Restores an invoice with a known id (snapshot restore). */
+    Invoice(UUID id, LocalDate issuedOn, double amount, boolean paid, UUID appointmentId) {
+        this.id = id;
         this.issuedOn = issuedOn; this.amount = amount; this.paid = paid; this.appointmentId = appointmentId;
     }
 }
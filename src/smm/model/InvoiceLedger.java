@@ -0,0 +1,145 @@
+package smm.model;
+
+import java.util.*;
+
+/**
+ * Invoice collection behind AppModel.invoices.
+ * Indexes invoices by id and by appointment id, and maintains the set of
+ * unpaid invoices so "unpaid" counts and lookups don't scan the history.
+ *
+ * Paid status must change through {@link #markPaid(UUID)} so the unpaid
+ * set stays in sync with Invoice.paid.
+ */
+public class InvoiceLedger extends AbstractCollection<Invoice> {
+    private Map<UUID, Invoice> byId = new LinkedHashMap<>();
+    private Map<UUID, List<Invoice>> byAppointment = new HashMap<>();
+    private final Map<UUID, Invoice> unpaid = new LinkedHashMap<>();
+
+    /* ---------------- Collection ---------------- */
+
+    @Override
+    public boolean add(Invoice inv) {
+        Objects.requireNonNull(inv, "invoice");
+        if (byId.putIfAbsent(inv.id, inv) != null) return false;
+        if (inv.appointmentId != null) {
+            byAppointment.computeIfAbsent(inv.appointmentId, k -> new ArrayList<>(1)).add(inv);
+        }
+        if (!inv.paid) unpaid.put(inv.id, inv);
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Invoice inv)) return false;
+        return remove(inv.id) != null;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Invoice inv && byId.get(inv.id) == inv;
+    }
+
+    @Override public int size() { return byId.size(); }
+
+    @Override
+    public void clear() {
+        byId.clear();
+        byAppointment.clear();
+        unpaid.clear();
+    }
+
+    /** Insertion-order iterator; remove() keeps the indexes consistent. */
+    @Override
+    public Iterator<Invoice> iterator() {
+        Iterator<Invoice> it = byId.values().iterator();
+        return new Iterator<>() {
+            private Invoice last;
+            @Override public boolean hasNext() { return it.hasNext(); }
+            @Override public Invoice next() { return last = it.next(); }
+            @Override public void remove() {
+                it.remove();
+                unindex(last);
+                last = null;
+            }
+        };
+    }
+
+    /** Pre-sizes an empty ledger for a bulk load of n invoices. */
+    void reserve(int n) {
+        if (!byId.isEmpty()) return;
+        int cap = Math.max(16, (int) (n / 0.75f) + 1);
+        byId = new LinkedHashMap<>(cap);
+        byAppointment = new HashMap<>(cap);
+    }
+
+    /* ---------------- Lookups ---------------- */
+
+    /** O(1) lookup by invoice id, or null. */
+    public Invoice get(UUID id) {
+        return id == null ? null : byId.get(id);
+    }
+
+    /** Removes by id and returns the removed invoice, or null. */
+    public Invoice remove(UUID id) {
+        Invoice inv = byId.remove(id);
+        if (inv != null) unindex(inv);
+        return inv;
+    }
+
+    /** First invoice issued for an appointment, or null. */
+    public Invoice forAppointment(UUID appointmentId) {
+        List<Invoice> l = byAppointment.get(appointmentId);
+        return l == null ? null : l.get(0);
+    }
+
+    /** First unpaid invoice issued for an appointment, or null. */
+    public Invoice unpaidForAppointment(UUID appointmentId) {
+        List<Invoice> l = byAppointment.get(appointmentId);
+        if (l == null) return null;
+        for (Invoice inv : l) if (!inv.paid) return inv;
+        return null;
+    }
+
+    /** Drops every invoice linked to an appointment (e.g. when it is removed). */
+    public void removeForAppointment(UUID appointmentId) {
+        List<Invoice> l = byAppointment.remove(appointmentId);
+        if (l == null) return;
+        for (Invoice inv : l) {
+            byId.remove(inv.id);
+            unpaid.remove(inv.id);
+        }
+    }
+
+    /* ---------------- Paid status ---------------- */
+
+    /** Marks an invoice paid; returns false if it is unknown. */
+    public boolean markPaid(UUID id) {
+        Invoice inv = byId.get(id);
+        if (inv == null) return false;
+        inv.paid = true;
+        unpaid.remove(id);
+        return true;
+    }
+
+    public int unpaidCount() { return unpaid.size(); }
+
+    public boolean hasUnpaid() { return !unpaid.isEmpty(); }
+
+    /** Oldest unpaid invoice, or null. */
+    public Invoice firstUnpaid() {
+        var it = unpaid.values().iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+
+    /** Unpaid invoices in issue order. */
+    public Collection<Invoice> unpaid() {
+        return Collections.unmodifiableCollection(unpaid.values());
+    }
+
+    private void unindex(Invoice inv) {
+        unpaid.remove(inv.id);
+        if (inv.appointmentId == null) return;
+        List<Invoice> l = byAppointment.get(inv.appointmentId);
+        if (l != null && l.remove(inv) && l.isEmpty()) byAppointment.remove(inv.appointmentId);
+    }
+}
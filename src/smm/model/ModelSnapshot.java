@@ -0,0 +1,320 @@
+package smm.model;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Versioned binary snapshot of an AppModel, plus named string sets for
+ * state kept outside the model (the controller's feature sets).
+ *
+ * Layout, little-endian:
+ *   "SMMS" magic, int version
+ *   string table: int count, per string int byte length + UTF-8 (ref -1 = null)
+ *   model: pricing, credit balance, simulated clock offset, profile
+ *   appointments, history, invoices, reminders: int count + fixed-width records
+ *   sets: int count, per set name + int size + strings
+ * Every string is stored once in the table and referenced by index, so
+ * repeated doctors, centers and "Completed: …" history lines cost 4 bytes.
+ *
+ * Saving writes a temp file through a FileChannel and moves it over the
+ * target; loading reads the whole file into a heap buffer and closes it, so
+ * no mapping pins the file (Windows refuses to replace a mapped file).
+ * Fields are written by hand, no Java serialization.
+ */
+public final class ModelSnapshot {
+    public static final int VERSION = 1;
+    private static final int MAGIC = 0x534D4D53; // "SMMS"
+    private static final int NO_DAY = Integer.MIN_VALUE;
+
+    /** What a snapshot holds: the model and the sets saved along with it. */
+    public record Contents(AppModel model, Map<String, Set<String>> sets) {}
+
+    private ModelSnapshot() {}
+
+    /* ---------------- Save ---------------- */
+
+    public static void save(AppModel m, Map<String, ? extends Collection<String>> sets, Path file) throws IOException {
+        // pass 1: string table
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        for (String s : new String[]{m.pricing.name(), m.profile.name, m.profile.email,
+                m.profile.phoneNumber, m.profile.insurance.name()}) intern(strings, s);
+        for (Appointment a : m.appointments) {
+            intern(strings, a.type); intern(strings, a.service); intern(strings, a.doctor);
+            intern(strings, a.medicalCenter); intern(strings, a.roomType); intern(strings, a.equipment);
+        }
+        for (HistoryRecord r : m.history) { intern(strings, r.kind); intern(strings, r.details); }
+        for (Reminder r : m.reminders) { intern(strings, r.type); intern(strings, r.text); }
+        sets.forEach((name, values) -> {
+            intern(strings, name);
+            for (String v : values) intern(strings, v);
+        });
+
+        Path dir = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try (Out out = new Out(FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))) {
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+
+            out.putInt(strings.size());
+            for (String s : strings.keySet()) {
+                byte[] b = s.getBytes(StandardCharsets.UTF_8);
+                out.putInt(b.length);
+                out.put(b);
+            }
+
+            // pass 2: records
+            out.putInt(ref(strings, m.pricing.name()));
+            out.putDouble(m.creditBalance);
+            out.putLong(m.clockOffsetDays());
+            UserProfile p = m.profile;
+            out.putInt(ref(strings, p.name));
+            out.putInt(ref(strings, p.email));
+            out.putInt(ref(strings, p.phoneNumber));
+            out.putInt(ref(strings, p.insurance.name()));
+            out.putByte(flags(p.notifEmail, p.notifSMS, p.notifInApp, p.twoFA));
+
+            out.putInt(m.appointments.size());
+            for (Appointment a : m.appointments) {
+                out.putUuid(a.id);
+                out.putInt(day(a.date));
+                out.putLong(a.time == null ? -1 : a.time.toNanoOfDay());
+                out.putInt(ref(strings, a.type));
+                out.putInt(ref(strings, a.service));
+                out.putInt(ref(strings, a.doctor));
+                out.putInt(ref(strings, a.medicalCenter));
+                out.putInt(ref(strings, a.roomType));
+                out.putInt(ref(strings, a.equipment));
+                out.putDouble(a.price);
+                out.putByte(flags(a.paid));
+            }
+
+            out.putInt(m.history.size());
+            for (HistoryRecord r : m.history) {
+                out.putInt(day(r.date));
+                out.putInt(ref(strings, r.kind));
+                out.putInt(ref(strings, r.details));
+            }
+
+            out.putInt(m.invoices.size());
+            for (Invoice inv : m.invoices) {
+                out.putUuid(inv.id);
+                out.putInt(day(inv.issuedOn));
+                out.putDouble(inv.amount);
+                out.putByte(flags(inv.paid, inv.appointmentId != null));
+                if (inv.appointmentId != null) out.putUuid(inv.appointmentId);
+            }
+
+            out.putInt(m.reminders.size());
+            for (Reminder r : m.reminders) {
+                out.putUuid(r.id);
+                out.putInt(ref(strings, r.type));
+                out.putInt(ref(strings, r.text));
+                out.putLong(r.when == null ? Long.MIN_VALUE : r.when.toEpochSecond(ZoneOffset.UTC));
+                out.putInt(r.when == null ? 0 : r.when.getNano());
+                out.putByte(flags(r.enabled, m.isReminderPending(r.id)));
+            }
+
+            out.putInt(sets.size());
+            for (var e : sets.entrySet()) {
+                out.putInt(ref(strings, e.getKey()));
+                out.putInt(e.getValue().size());
+                for (String v : e.getValue()) out.putInt(ref(strings, v));
+            }
+            out.force();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /* ---------------- Load ---------------- */
+
+    public static Contents load(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = ch.size();
+            if (length > Integer.MAX_VALUE) throw new IOException("snapshot too large: " + file);
+            ByteBuffer in = ByteBuffer.allocate((int) length).order(ByteOrder.LITTLE_ENDIAN);
+            while (in.hasRemaining()) {
+                if (ch.read(in) < 0) break; // shrank while reading: the parse reports it as corrupt
+            }
+            in.flip();
+            if (in.remaining() < 8 || in.getInt() != MAGIC) throw new IOException("not a model snapshot: " + file);
+            int version = in.getInt();
+            if (version != VERSION) throw new IOException("unsupported snapshot version " + version + ": " + file);
+
+            String[] strings = new String[in.getInt()];
+            byte[] buf = new byte[256];
+            for (int i = 0; i < strings.length; i++) {
+                int len = in.getInt();
+                if (len > buf.length) buf = new byte[Math.max(len, buf.length * 2)];
+                in.get(buf, 0, len);
+                strings[i] = new String(buf, 0, len, StandardCharsets.UTF_8);
+            }
+
+            AppModel m = new AppModel(false);
+            m.pricing = AppModel.PricingType.valueOf(str(strings, in.getInt()));
+            m.creditBalance = in.getDouble();
+            m.setClockOffsetDays(in.getLong());
+            UserProfile p = m.profile;
+            p.name = str(strings, in.getInt());
+            p.email = str(strings, in.getInt());
+            p.phoneNumber = str(strings, in.getInt());
+            p.insurance = InsuranceLevel.valueOf(str(strings, in.getInt()));
+            int pf = in.get();
+            p.notifEmail = (pf & 1) != 0;
+            p.notifSMS = (pf & 2) != 0;
+            p.notifInApp = (pf & 4) != 0;
+            p.twoFA = (pf & 8) != 0;
+
+            int count = in.getInt();
+            m.appointments.reserve(count);
+            for (int i = 0; i < count; i++) {
+                UUID id = uuid(in);
+                LocalDate date = date(in.getInt());
+                long nanos = in.getLong();
+                Appointment a = new Appointment(id, date, nanos < 0 ? null : LocalTime.ofNanoOfDay(nanos),
+                        str(strings, in.getInt()), str(strings, in.getInt()), str(strings, in.getInt()),
+                        str(strings, in.getInt()), str(strings, in.getInt()), str(strings, in.getInt()),
+                        in.getDouble());
+                a.paid = (in.get() & 1) != 0;
+                m.appointments.add(a);
+            }
+
+            for (int i = 0, n = in.getInt(); i < n; i++) {
+                LocalDate date = date(in.getInt());
+                m.history.add(new HistoryRecord(date, str(strings, in.getInt()), str(strings, in.getInt())));
+            }
+
+            count = in.getInt();
+            m.invoices.reserve(count);
+            for (int i = 0; i < count; i++) {
+                UUID id = uuid(in);
+                LocalDate issued = date(in.getInt());
+                double amount = in.getDouble();
+                int f = in.get();
+                UUID appt = (f & 2) != 0 ? uuid(in) : null;
+                m.invoices.add(new Invoice(id, issued, amount, (f & 1) != 0, appt));
+            }
+
+            for (int i = 0, n = in.getInt(); i < n; i++) {
+                UUID id = uuid(in);
+                String type = str(strings, in.getInt()), text = str(strings, in.getInt());
+                long sec = in.getLong();
+                int nano = in.getInt();
+                Reminder r = new Reminder(id, type, text,
+                        sec == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(sec, nano, ZoneOffset.UTC));
+                int f = in.get();
+                r.enabled = (f & 1) != 0;
+                m.addReminder(r);
+                if ((f & 2) == 0) m.cancelReminder(id); // already fired before the save
+            }
+
+            Map<String, Set<String>> sets = new LinkedHashMap<>();
+            for (int i = 0, n = in.getInt(); i < n; i++) {
+                String name = str(strings, in.getInt());
+                Set<String> values = new LinkedHashSet<>();
+                for (int k = 0, size = in.getInt(); k < size; k++) values.add(str(strings, in.getInt()));
+                sets.put(name, values);
+            }
+            return new Contents(m, sets);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                 | NegativeArraySizeException e) {
+            throw new IOException("corrupt model snapshot: " + file, e);
+        }
+    }
+
+    /* ---------------- Encoding helpers ---------------- */
+
+    private static void intern(Map<String, Integer> strings, String s) {
+        if (s != null) strings.putIfAbsent(s, strings.size());
+    }
+
+    private static int ref(Map<String, Integer> strings, String s) {
+        return s == null ? -1 : strings.get(s);
+    }
+
+    private static String str(String[] strings, int ref) {
+        return ref < 0 ? null : strings[ref];
+    }
+
+    private static int day(LocalDate d) {
+        return d == null ? NO_DAY : Math.toIntExact(d.toEpochDay());
+    }
+
+    private static LocalDate date(int day) {
+        return day == NO_DAY ? null : LocalDate.ofEpochDay(day);
+    }
+
+    private static byte flags(boolean... bits) {
+        int f = 0;
+        for (int i = 0; i < bits.length; i++) if (bits[i]) f |= 1 << i;
+        return (byte) f;
+    }
+
+    private static UUID uuid(ByteBuffer in) {
+        return new UUID(in.getLong(), in.getLong());
+    }
+
+    /** Buffered little-endian writer over a channel. */
+    private static final class Out implements AutoCloseable {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+        Out(FileChannel ch) { this.ch = ch; }
+
+        void putByte(byte v) throws IOException { room(1); buf.put(v); }
+        void putInt(int v) throws IOException { room(4); buf.putInt(v); }
+        void putLong(long v) throws IOException { room(8); buf.putLong(v); }
+        void putDouble(double v) throws IOException { room(8); buf.putDouble(v); }
+
+        void putUuid(UUID id) throws IOException {
+            putLong(id.getMostSignificantBits());
+            putLong(id.getLeastSignificantBits());
+        }
+
+        void put(byte[] b) throws IOException {
+            if (b.length > buf.capacity()) {
+                drain();
+                ByteBuffer w = ByteBuffer.wrap(b);
+                while (w.hasRemaining()) ch.write(w);
+            } else {
+                room(b.length);
+                buf.put(b);
+            }
+        }
+
+        void force() throws IOException {
+            drain();
+            ch.force(false);
+        }
+
+        private void room(int n) throws IOException {
+            if (buf.remaining() < n) drain();
+        }
+
+        private void drain() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) ch.write(buf);
+            buf.clear();
+        }
+
+        @Override public void close() throws IOException {
+            try { drain(); } finally { ch.close(); }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package smm.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Insurance + pricing plan arithmetic, table driven.
+ *
+ * Each (InsuranceLevel, PricingType) pair maps to two factors, applied in
+ * order: (base * coverage) * discount. That is exactly what the per-call
+ * switches computed; a single pre-multiplied factor would not be
+ * (base * 0.8 * 0.9 and base * 0.72 can differ in the last bit), and every
+ * price here must match AppModel.priceAfterPlan bit for bit.
+ *
+ * The bulk methods run plain loops over double[] (which the JIT unrolls and
+ * vectorizes) and split large inputs into chunks on the common pool.
+ */
+public final class PricingEngine {
+    /** Below this many prices a bulk call stays on the calling thread. */
+    static final int PARALLEL_MIN = 1 << 16;
+    private static final int CHUNK = 1 << 14;
+
+    private static final int PRICINGS = AppModel.PricingType.values().length;
+    private static final double[] COVERAGE = new double[InsuranceLevel.values().length * PRICINGS];
+    private static final double[] DISCOUNT = new double[COVERAGE.length];
+    static {
+        for (InsuranceLevel ins : InsuranceLevel.values()) {
+            for (AppModel.PricingType p : AppModel.PricingType.values()) {
+                int k = plan(ins, p);
+                COVERAGE[k] = switch (ins) {
+                    case MINIMAL -> 1.0;
+                    case NORMAL  -> 0.8;   // 20% covered
+                    case PREMIUM -> 0.5;   // 50% covered
+                };
+                DISCOUNT[k] = switch (p) {
+                    case OUT_OF_POCKET    -> 1.0;
+                    case PRICE_REDUCTION  -> 0.9; // extra 10% discount
+                    case DEFERRED_PAYMENT -> 1.0; // same amount, paid later
+                };
+            }
+        }
+    }
+
+    private PricingEngine() {}
+
+    private static int plan(InsuranceLevel ins, AppModel.PricingType p) {
+        return ins.ordinal() * PRICINGS + p.ordinal();
+    }
+
+    /** Price after insurance coverage only. */
+    public static double afterInsurance(double base, InsuranceLevel ins) {
+        return base * COVERAGE[plan(ins, AppModel.PricingType.OUT_OF_POCKET)];
+    }
+
+    /** Amount to pay under a plan; same result as AppModel.priceAfterPlan. */
+    public static double price(double base, InsuranceLevel ins, AppModel.PricingType p) {
+        int k = plan(ins, p);
+        return base * COVERAGE[k] * DISCOUNT[k];
+    }
+
+    /* ---------------- Bulk ---------------- */
+
+    /** out[i] = price(base[i]) for i < n. */
+    public static void priceAll(double[] base, double[] out, int n, InsuranceLevel ins, AppModel.PricingType p) {
+        int k = plan(ins, p);
+        double c = COVERAGE[k], d = DISCOUNT[k];
+        chunked(n, (from, to) -> {
+            for (int i = from; i < to; i++) out[i] = base[i] * c * d;
+        });
+    }
+
+    /** out[i] = price(column[rows[i]]): prices of selected rows of a price column. */
+    public static void priceRows(double[] column, int[] rows, double[] out, InsuranceLevel ins, AppModel.PricingType p) {
+        int k = plan(ins, p);
+        double c = COVERAGE[k], d = DISCOUNT[k];
+        chunked(rows.length, (from, to) -> {
+            for (int i = from; i < to; i++) out[i] = column[rows[i]] * c * d;
+        });
+    }
+
+    /**
+     * Re-prices every unpaid invoice of a booked appointment under the model's
+     * current plan, from the appointment's base price. Paid invoices, and those
+     * whose appointment is gone (moved to history), keep their amount.
+     * @return number of invoices whose amount changed
+     */
+    public static int repriceAll(AppModel m) {
+        // gather (single thread: the ledger and store are not thread-safe) ...
+        List<Invoice> invoices = new ArrayList<>(m.invoices.unpaidCount());
+        double[] base = new double[m.invoices.unpaidCount()];
+        for (Invoice inv : m.invoices.unpaid()) {
+            Appointment a = m.appointments.get(inv.appointmentId);
+            if (a == null) continue;
+            base[invoices.size()] = a.price;
+            invoices.add(inv);
+        }
+        int n = invoices.size();
+        // ... price as a primitive loop ...
+        double[] amount = new double[n];
+        priceAll(base, amount, n, m.profile.insurance, m.pricing);
+        // ... and write back
+        int changed = 0;
+        for (int i = 0; i < n; i++) {
+            Invoice inv = invoices.get(i);
+            if (Double.doubleToRawLongBits(inv.amount) != Double.doubleToRawLongBits(amount[i])) {
+                inv.amount = amount[i];
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    private interface Range { void run(int from, int to); }
+
+    private static void chunked(int n, Range body) {
+        if (n < PARALLEL_MIN) {
+            body.run(0, n);
+            return;
+        }
+        IntStream.range(0, (n + CHUNK - 1) / CHUNK).parallel()
+                .forEach(c -> body.run(c * CHUNK, Math.min(n, (c + 1) * CHUNK)));
+    }
+}
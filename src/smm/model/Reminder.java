@@ -3,13 +3,19 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 public class Reminder {
-    public final UUID id = UUID.randomUUID();
+    public final UUID id;
     public String type;    // appointment / medication
     public String text;
     public LocalDateTime when;
     public boolean enabled = true;
 
     public Reminder(String type, String text, LocalDateTime when) {
+        this(UUID.randomUUID(), type, text, when);
+    }
+
+    /** Restores a reminder with a known id (snapshot restore, journal replay). */
+    public Reminder(UUID id, String type, String text, LocalDateTime when) {
+        this.id = id;
         this.type = type; this.text = text; this.when = when;
     }
 }
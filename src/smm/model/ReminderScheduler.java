@@ -0,0 +1,186 @@
+package smm.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Fires reminders when the (simulated) clock passes Reminder.when.
+ *
+ * Hierarchical timing wheel with a one-minute tick: 4 levels of 64 slots
+ * cover ~32 years, later reminders wait in an overflow list. Every slot is
+ * a doubly linked list, so schedule and cancel are O(1); advancing costs one
+ * step per non-empty tick plus a cascade every 64^k ticks, and skips runs of
+ * empty levels entirely (a one-year jump with nothing due is a few steps).
+ *
+ * The gate (enabled flag, feature flags) is checked when a reminder comes
+ * due, not when it is scheduled; a reminder that is gated off at that moment
+ * is dropped. Not thread-safe: drive it from the thread that owns the model.
+ */
+public class ReminderScheduler {
+    private static final int BITS = 6, SLOTS = 1 << BITS, MASK = SLOTS - 1, LEVELS = 4;
+    private static final int OVERDUE = -1, OVERFLOW = LEVELS;
+
+    /** Wheel entry; also its own list link. */
+    private static final class Node {
+        Reminder reminder;
+        long due;
+        int level;
+        Node prev = this, next = this;
+
+        void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = next = this;
+        }
+
+        void append(Node n) { // "this" is a list head
+            n.prev = prev;
+            n.next = this;
+            prev.next = n;
+            prev = n;
+        }
+
+        boolean isEmpty() { return next == this; }
+    }
+
+    private final Node[][] wheel = new Node[LEVELS][SLOTS];
+    private final int[] levelCount = new int[LEVELS];
+    private final Node overdue = new Node();   // due at or before "current"
+    private final Node overflow = new Node();  // beyond the top level
+    private final Map<UUID, Node> byId = new HashMap<>();
+    private long current; // last processed tick (minutes since epoch, UTC)
+    private Predicate<Reminder> gate = r -> true;
+
+    public ReminderScheduler(LocalDateTime now) {
+        for (Node[] level : wheel) for (int i = 0; i < SLOTS; i++) level[i] = new Node();
+        current = tick(now);
+    }
+
+    /** Extra condition (e.g. feature flags) a due reminder must pass, besides enabled. */
+    public void setGate(Predicate<Reminder> gate) {
+        this.gate = gate != null ? gate : r -> true;
+    }
+
+    public LocalDateTime now() {
+        return LocalDateTime.ofEpochSecond(current * 60, 0, ZoneOffset.UTC);
+    }
+
+    public int size() { return byId.size(); }
+
+    /* ---------------- Scheduling ---------------- */
+
+    /** Schedules (or re-schedules) a reminder at its current "when"; O(1). */
+    public void schedule(Reminder r) {
+        if (r.when == null) { cancel(r.id); return; }
+        Node n = byId.get(r.id);
+        if (n == null) {
+            n = new Node();
+            n.reminder = r;
+            byId.put(r.id, n);
+        } else {
+            detach(n);
+        }
+        n.due = tick(r.when);
+        place(n);
+    }
+
+    /** Removes a pending reminder; O(1). Returns false if it was not pending. */
+    public boolean cancel(UUID id) {
+        Node n = byId.remove(id);
+        if (n == null) return false;
+        detach(n);
+        return true;
+    }
+
+    public boolean isPending(UUID id) { return byId.containsKey(id); }
+
+    /* ---------------- Clock ---------------- */
+
+    /**
+     * Moves the clock forward and returns the reminders that came due and
+     * passed the gate, earliest first. Moving backwards is a no-op.
+     */
+    public List<Reminder> advanceTo(LocalDateTime now) {
+        long target = tick(now);
+        List<Node> due = new ArrayList<>();
+        if (!overdue.isEmpty()) take(overdue, due);
+        while (current < target) {
+            if (byId.isEmpty()) { current = target; break; }
+            // levels below k are empty: nothing can fire before level k's next cascade
+            int k = 0;
+            while (k < LEVELS && levelCount[k] == 0) k++;
+            long step = 1L << (BITS * k);
+            current = k == 0 ? current + 1 : Math.min(target, (current / step + 1) * step);
+            cascade();
+            take(wheel[0][(int) (current & MASK)], due);
+            if (!overdue.isEmpty()) take(overdue, due);
+        }
+
+        List<Reminder> fired = new ArrayList<>();
+        due.sort(Comparator.comparingLong(n -> n.due));
+        for (Node n : due) {
+            Reminder r = n.reminder;
+            if (r.enabled && gate.test(r)) fired.add(r);
+        }
+        return fired;
+    }
+
+    /* ---------------- Internals ---------------- */
+
+    private static long tick(LocalDateTime t) {
+        return Math.floorDiv(t.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private void place(Node n) {
+        long delta = n.due - current;
+        Node head;
+        if (delta <= 0) {
+            n.level = OVERDUE;
+            head = overdue;
+        } else {
+            int level = 0;
+            while (level < LEVELS && delta >= 1L << (BITS * (level + 1))) level++;
+            n.level = level;
+            if (level == OVERFLOW) {
+                head = overflow;
+            } else {
+                head = wheel[level][(int) ((n.due >>> (BITS * level)) & MASK)];
+                levelCount[level]++;
+            }
+        }
+        head.append(n);
+    }
+
+    private void detach(Node n) {
+        if (n.level >= 0 && n.level < LEVELS) levelCount[n.level]--;
+        n.unlink();
+    }
+
+    /** On a level boundary, spreads the next slot of each higher level into the levels below. */
+    private void cascade() {
+        for (int level = 1; level <= LEVELS; level++) {
+            if (((current >>> (BITS * (level - 1))) & MASK) != 0) return;
+            Node head = level == LEVELS ? overflow : wheel[level][(int) ((current >>> (BITS * level)) & MASK)];
+            // detach first: overflow entries that are still too far go back to the same list
+            List<Node> moved = new ArrayList<>();
+            while (!head.isEmpty()) {
+                Node n = head.next;
+                detach(n);
+                moved.add(n);
+            }
+            for (Node n : moved) place(n);
+        }
+    }
+
+    /** Moves every node of a list to "out" and forgets it. */
+    private void take(Node head, List<Node> out) {
+        while (!head.isEmpty()) {
+            Node n = head.next;
+            detach(n);
+            byId.remove(n.reminder.id);
+            out.add(n);
+        }
+    }
+}
@@ -1,35 +1,104 @@
 package smm.model;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Time Event System (TES)
  * Implements the Observer pattern.
+ *
+ * SYNC (default): observers run on the caller's thread, one after the other.
+ * ASYNC: each observer has its own ordered queue on an executor; advanceTime
+ * returns once the event is queued. An observer always sees events in date
+ * order, and the returned future completes when every observer handled it.
+ * Observers that read each other's state (the model, then the UI) should share
+ * a single-threaded executor such as the EDT and be added in that order.
  */
 public class TimeEventSystem {
+    public enum Dispatch { SYNC, ASYNC }
+
     private LocalDate currentDate = LocalDate.now();
-    private final List<TimeObserver> observers = new ArrayList<>();
+    private final List<Subscription> observers = new CopyOnWriteArrayList<>();
     private final Random random = new Random();
+    private final Dispatch dispatch;
+    private final Executor defaultExecutor;
+
+    public TimeEventSystem() { this(Dispatch.SYNC, Runnable::run); }
 
-    public void addObserver(TimeObserver o) { observers.add(o); }
-    public void removeObserver(TimeObserver o) { observers.remove(o); }
+    /** @param defaultExecutor where ASYNC observers added without their own executor run */
+    public TimeEventSystem(Dispatch dispatch, Executor defaultExecutor) {
+        this.dispatch = dispatch;
+        this.defaultExecutor = defaultExecutor != null ? defaultExecutor : ForkJoinPool.commonPool();
+    }
 
-    public LocalDate getCurrentDate() { return currentDate; }
+    public Dispatch getDispatch() { return dispatch; }
 
-    public void advanceTime(int days, boolean randomEvents) {
-    LocalDate old = currentDate;
-    currentDate = currentDate.plusDays(days);
-    List<String> triggered = new ArrayList<>();
+    public void addObserver(TimeObserver o) { addObserver(o, defaultExecutor); }
 
-    if (randomEvents) {
-        int roll = random.nextInt(3);
-        if (roll == 0) triggered.add("Doctor became unavailable");
-        else if (roll == 1) triggered.add("User fell ill");
-        else triggered.add("Follow-up scheduled automatically");
+    /** Adds an observer whose ASYNC deliveries run on "executor" (ignored in SYNC mode). */
+    public void addObserver(TimeObserver o, Executor executor) {
+        observers.add(new Subscription(o, executor));
     }
 
-    TimeEvent event = new TimeEvent(old, currentDate, triggered);
-    for (TimeObserver o : observers) o.onTimeAdvanced(event);
+    public void removeObserver(TimeObserver o) { observers.removeIf(s -> s.observer == o); }
+
+    public synchronized LocalDate getCurrentDate() { return currentDate; }
+
+    /** Starts the clock at a restored date; observers are not notified. */
+    public synchronized void setCurrentDate(LocalDate date) { currentDate = Objects.requireNonNull(date); }
+
+    /**
+     * Advances the clock and notifies observers.
+     * @return completes when all observers handled the event (already done in SYNC mode);
+     *         fails if any observer threw
+     */
+    public synchronized CompletableFuture<Void> advanceTime(int days, boolean randomEvents) {
+        LocalDate old = currentDate;
+        currentDate = currentDate.plusDays(days);
+        List<String> triggered = new ArrayList<>();
+
+        if (randomEvents) {
+            int roll = random.nextInt(3);
+            if (roll == 0) triggered.add("Doctor became unavailable");
+            else if (roll == 1) triggered.add("User fell ill");
+            else triggered.add("Follow-up scheduled automatically");
+        }
+
+        TimeEvent event = new TimeEvent(old, currentDate, List.copyOf(triggered));
+        if (dispatch == Dispatch.SYNC) {
+            for (Subscription s : observers) s.observer.onTimeAdvanced(event);
+            return CompletableFuture.completedFuture(null);
+        }
+        // queued under the lock, so each observer's queue receives events in date order
+        CompletableFuture<?>[] done = new CompletableFuture<?>[observers.size()];
+        int i = 0;
+        for (Subscription s : observers) {
+            if (i == done.length) break; // added concurrently: gets the next event
+            done[i++] = s.enqueue(event);
+        }
+        return CompletableFuture.allOf(Arrays.copyOf(done, i));
     }
 
+    /** One observer and the tail of its delivery queue. */
+    private static final class Subscription {
+        final TimeObserver observer;
+        final Executor executor;
+        private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+        Subscription(TimeObserver observer, Executor executor) {
+            this.observer = observer;
+            this.executor = executor;
+        }
+
+        synchronized CompletableFuture<Void> enqueue(TimeEvent event) {
+            // a failed delivery must not block the ones behind it
+            tail = tail.exceptionally(t -> null)
+                    .thenRunAsync(() -> observer.onTimeAdvanced(event), executor);
+            tail.whenComplete((v, t) -> { if (t != null) t.printStackTrace(); });
+            return tail;
+        }
+    }
 }
@@ -7,11 +7,23 @@ import smm.view.pages.*;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.*;
 
 public class AppFrame extends JFrame {
-    public interface Refreshable { void refresh(); }
+    public interface Refreshable {
+        void refresh();
+        /** Model domains this page renders; a change in any of them makes the page stale. */
+        default Set<Domain> dependsOn() { return EnumSet.allOf(Domain.class); }
+    }
+
+    /** Parts of the model a page can depend on (FEATURES includes insurance and pricing). */
+    public enum Domain { APPOINTMENTS, HISTORY, INVOICES, REMINDERS, PROFILE, FEATURES, DOCTORS }
+
+    // Only the visible page is refreshed when the model changes; the others are
+    // marked stale here and refreshed when they are shown.
+    private final Map<String, Set<Domain>> pageDomains = new HashMap<>();
+    private final Set<String> stale = new HashSet<>();
+    private String visibleKey;
     private boolean suppressNavEvents = false;
     public final CardLayout cards = new CardLayout();
     public final JPanel content = new JPanel(cards);
@@ -104,7 +116,7 @@ public void rebuildNavigationByFeatures() {
 
     if (current != null) {
         // show without triggering listener
-        cards.show(content, current);
+        showCard(current);
         nav.setSelectedValue(current, true);
     }
 
@@ -114,29 +126,48 @@ public void rebuildNavigationByFeatures() {
 
     private void addPage(String key, JPanel panel) {
         pages.put(key, panel);
+        if (panel instanceof Refreshable r) {
+            pageDomains.put(key, r.dependsOn());
+            stale.add(key);
+        }
         navModel.addElement(key);
         content.add(panel, key);
     }
 
     private void showCard(String key) {
         if (key == null) return;
-        refresh(key);
+        visibleKey = key;
+        refreshIfStale(key);
         cards.show(content, key);
     }
 
-    private void refresh(String key) {
+    private void refreshIfStale(String key) {
+        if (!stale.remove(key)) return;
         JPanel p = pages.get(key);
         if (p instanceof Refreshable r) r.refresh();
     }
-public void refreshAll() {
-    for (JPanel p : pages.values()) if (p instanceof Refreshable r) r.refresh();
-    rebuildNavigationByFeatures();   // <— add this line
-}
 
-public void navigateTo(String key) {
-    refreshAll();                 // keep this line if you like it
-    showCard(key);
-    // nav.setSelectedValue(key, true); // you can remove this if you prefer
-}
+    /**
+     * Signals that the given model domains changed: pages depending on them become
+     * stale, the visible one is refreshed right away, the others when next shown.
+     */
+    public void invalidate(Domain... changed) {
+        Set<Domain> ch = changed.length == 0 ? EnumSet.noneOf(Domain.class) : EnumSet.copyOf(Arrays.asList(changed));
+        pageDomains.forEach((key, deps) -> {
+            if (!Collections.disjoint(deps, ch)) stale.add(key);
+        });
+        if (ch.contains(Domain.FEATURES)) rebuildNavigationByFeatures(); // shows (and refreshes) the current card
+        else if (visibleKey != null) refreshIfStale(visibleKey);
+    }
+
+    /** Everything may have changed: all pages go stale, the visible one refreshes now. */
+    public void refreshAll() {
+        invalidate(Domain.values());
+    }
+
+    public void navigateTo(String key) {
+        showCard(key);
+        // nav.setSelectedValue(key, true); // you can remove this if you prefer
+    }
 
 }
@@ -10,4 +10,12 @@ public abstract class NavAwarePanel extends JPanel implements AppFrame.Refreshab
             f.navigateTo(key);
         }
     }
+
+    /** Tells the frame this page changed the model outside the controller. */
+    protected void changed(AppFrame.Domain... domains) {
+        Window w = SwingUtilities.getWindowAncestor(this);
+        if (w instanceof AppFrame f) {
+            f.invalidate(domains);
+        }
+    }
 }
@@ -18,6 +18,32 @@ public class UI {
     }
     public static JLabel h1(String s){ var l=new JLabel(s); l.setFont(l.getFont().deriveFont(Font.BOLD,20f)); return l; }
     public static JLabel h2(String s){ var l=new JLabel(s); l.setFont(l.getFont().deriveFont(Font.BOLD,16f)); return l; }
+    /** Suggestion popup under a text field: suggest(text) is asked on each edit; picking one fills the field. */
+    public static void typeahead(JTextField field, java.util.function.Function<String, java.util.List<String>> suggest) {
+        JPopupMenu popup = new JPopupMenu();
+        popup.setFocusable(false);
+        String[] picked = {null};
+        Runnable update = () -> {
+            popup.setVisible(false);
+            popup.removeAll();
+            String text = field.getText();
+            if (text.isBlank() || text.equals(picked[0]) || !field.isFocusOwner()) return;
+            for (String s : suggest.apply(text)) {
+                JMenuItem item = new JMenuItem(s);
+                item.addActionListener(e -> { picked[0] = s; field.setText(s); });
+                popup.add(item);
+            }
+            if (popup.getComponentCount() > 0) popup.show(field, 0, field.getHeight());
+        };
+        field.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            public void insertUpdate(javax.swing.event.DocumentEvent e){ SwingUtilities.invokeLater(update); }
+            public void removeUpdate(javax.swing.event.DocumentEvent e){ SwingUtilities.invokeLater(update); }
+            public void changedUpdate(javax.swing.event.DocumentEvent e){ }
+        });
+        field.addFocusListener(new java.awt.event.FocusAdapter() {
+            @Override public void focusLost(java.awt.event.FocusEvent e) { popup.setVisible(false); }
+        });
+    }
     public static JScrollPane table(Object[] cols, Object[][] data) {
         JTable t = new JTable(new DefaultTableModel(data, cols){ public boolean isCellEditable(int r,int c){return false;}});
         t.setRowHeight(22);
@@ -2,11 +2,15 @@ package smm.view.pages;
 
 import smm.controller.Controller;
 import smm.model.Appointment;
+import smm.model.AppointmentTable;
+import smm.model.AvailabilityEngine;
+import smm.model.BookingConflict;
+import smm.model.DoctorRegistry;
+import smm.view.AppFrame.Domain;
 import smm.view.NavAwarePanel;
 import smm.view.UI;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -23,22 +27,14 @@ public class AppointmentsPages {
         private final Controller c;
 
         // --- Table
-        private final DefaultTableModel model = new DefaultTableModel(
-                new Object[]{"ID","Date","Time","Type","Service","Doctor","Center","Paid","Price (€)"}, 0) {
-            @Override public boolean isCellEditable(int r,int c){ return false; }
-            @Override public Class<?> getColumnClass(int c){
-                return switch (c){
-                    case 0 -> UUID.class;
-                    case 1 -> java.time.LocalDate.class;
-                    case 2 -> java.time.LocalTime.class;
-                    case 7 -> String.class;
-                    case 8 -> Double.class;
-                    default -> String.class;
-                };
-            }
-        };
+        private final AppointmentTableModel model = new AppointmentTableModel();
         private final JTable table = new JTable(model);
 
+        // --- Background filtering: keystrokes are debounced, stale queries cancelled
+        private final javax.swing.Timer debounce = new javax.swing.Timer(150, e -> runQuery());
+        private SwingWorker<Query, Void> pending;
+        private long querySeq = 0;
+
         // --- Filters
         private final JComboBox<String> cbType = new JComboBox<>(new String[]{"All","Consultation","Surgery","Follow-up"});
         private final JTextField tfDoctor = new JTextField(14);
@@ -117,15 +113,17 @@ public class AppointmentsPages {
             add(bottom, BorderLayout.SOUTH);
 
             // Live filters
-            cbType.addActionListener(e -> refresh());
-            cbSort.addActionListener(e -> refresh());
+            debounce.setRepeats(false);
+            cbType.addActionListener(e -> debounce.restart());
+            cbSort.addActionListener(e -> debounce.restart());
             tfDoctor.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-                public void insertUpdate(javax.swing.event.DocumentEvent e){ refresh(); }
-                public void removeUpdate(javax.swing.event.DocumentEvent e){ refresh(); }
-                public void changedUpdate(javax.swing.event.DocumentEvent e){ refresh(); }
+                public void insertUpdate(javax.swing.event.DocumentEvent e){ debounce.restart(); }
+                public void removeUpdate(javax.swing.event.DocumentEvent e){ debounce.restart(); }
+                public void changedUpdate(javax.swing.event.DocumentEvent e){ debounce.restart(); }
             });
-            spFrom.addChangeListener(e -> refresh());
-            spTo.addChangeListener(e -> refresh());
+            spFrom.addChangeListener(e -> debounce.restart());
+            spTo.addChangeListener(e -> debounce.restart());
+            UI.typeahead(tfDoctor, q -> c.getDoctors().complete(q, 8));
 
             // Actions
             btnView.addActionListener(e -> {
@@ -139,18 +137,13 @@ public class AppointmentsPages {
                 var a = selectedApptOrWarn();
                 if (a == null) return;
                 new EditAppointmentDialog(SwingUtilities.getWindowAncestor(this), a).setVisible(true);
-                refresh();
             });
 
             btnRemove.addActionListener(e -> {
                 var a = selectedApptOrWarn();
                 if (a == null) return;
                 int ok = JOptionPane.showConfirmDialog(this, "Remove the selected appointment?", "Confirm", JOptionPane.YES_NO_OPTION);
-                if (ok == JOptionPane.YES_OPTION) {
-                    c.getModel().invoices.removeIf(inv -> Objects.equals(inv.appointmentId, a.id));
-                    c.getModel().appointments.remove(a);
-                    refresh();
-                }
+                if (ok == JOptionPane.YES_OPTION) c.removeAppointment(a.id);
             });
 
             btnPay.addActionListener(e -> paySelected());
@@ -166,26 +159,15 @@ public class AppointmentsPages {
                 return;
             }
 
-            var invUnpaid = c.getModel().invoices.stream()
-                    .filter(i -> Objects.equals(i.appointmentId, a.id) && !i.paid)
-                    .findFirst();
-            if (invUnpaid.isPresent()) {
-                c.payInvoice(invUnpaid.get().id);
-                a.paid = true;
-                JOptionPane.showMessageDialog(this, "Invoice paid.");
-                refresh();
-                return;
-            }
-            var invAny = c.getModel().invoices.stream().filter(i -> Objects.equals(i.appointmentId, a.id)).findFirst();
-            if (invAny.isPresent() && invAny.get().paid) {
+            boolean hadInvoice = c.getModel().invoices.unpaidForAppointment(a.id) != null;
+            var inv = c.payAppointment(a.id);
+            if (inv == null) {
                 JOptionPane.showMessageDialog(this, "This appointment is already paid.");
-                return;
+            } else if (hadInvoice) {
+                JOptionPane.showMessageDialog(this, "Invoice paid.");
+            } else {
+                JOptionPane.showMessageDialog(this, "Invoice created and paid (" + inv.amount + "€).");
             }
-            double amount = c.getModel().priceAfterPlan(a.price);
-            c.getModel().invoices.add(new smm.model.Invoice(java.time.LocalDate.now(), amount, true, a.id));
-            a.paid = true;
-            JOptionPane.showMessageDialog(this, "Invoice created and paid (" + amount + "€).");
-            refresh();
         }
 
         private JButton wideBtn(String text) {
@@ -199,40 +181,87 @@ public class AppointmentsPages {
         private UUID selectedIdOrWarn() {
             int i = table.getSelectedRow();
             if (i < 0) { JOptionPane.showMessageDialog(this, "Select a row first"); return null; }
-            return (UUID) model.getValueAt(i, 0);
+            return model.idAt(table.convertRowIndexToModel(i));
         }
         private smm.model.Appointment selectedApptOrWarn() {
             UUID id = selectedIdOrWarn(); if (id == null) return null;
-            return c.getModel().appointments.stream().filter(a -> a.id.equals(id)).findFirst().orElse(null);
+            return c.getModel().appointments.get(id);
         }
 
+        @Override public Set<Domain> dependsOn() { return EnumSet.of(Domain.APPOINTMENTS, Domain.INVOICES, Domain.FEATURES); }
+        /** Model changes apply immediately; filter edits go through the debounce timer. */
         @Override public void refresh() {
-            model.setRowCount(0);
+            debounce.stop();
+            runQuery();
+        }
+
+        /**
+         * Snapshots the filters and the appointments in the date range (ordered index, on the EDT),
+         * then filters, sorts and prices them in a worker. Only the latest query's result is shown.
+         */
+        private void runQuery() {
             var M = c.getModel();
+            LocalDate from = toLocalDate((Date) spFrom.getValue());
+            LocalDate to   = toLocalDate((Date) spTo.getValue());
+            Query q = new Query(++querySeq,
+                    Objects.toString(cbType.getSelectedItem(), "All"),
+                    tfDoctor.getText().trim().toLowerCase(),
+                    Objects.toString(cbSort.getSelectedItem(), ""),
+                    from, to, M.appointments.table().snapshot(),
+                    M.profile.insurance, M.pricing);
+
+            if (pending != null) pending.cancel(true);
+            pending = new SwingWorker<>() {
+                @Override protected Query doInBackground() { return q.run(this::isCancelled); }
+                @Override protected void done() {
+                    if (isCancelled() || q.seq != querySeq) return;
+                    try {
+                        Query r = get();
+                        if (r != null) model.setRows(r.snapshot, r.rows, r.prices);
+                    } catch (InterruptedException | java.util.concurrent.ExecutionException ex) {
+                        ex.printStackTrace();
+                    }
+                }
+            };
+            pending.execute();
+        }
 
-            String wantType = Objects.toString(cbType.getSelectedItem(), "All");
-            String doctorQ = tfDoctor.getText().trim().toLowerCase();
-            LocalDate from = LocalDate.parse(new java.text.SimpleDateFormat("yyyy-MM-dd").format((Date) spFrom.getValue()));
-            LocalDate to   = LocalDate.parse(new java.text.SimpleDateFormat("yyyy-MM-dd").format((Date) spTo.getValue()));
-
-            List<Appointment> list = new ArrayList<>(M.appointments);
-            switch (Objects.toString(cbSort.getSelectedItem(), "")) {
-                case "Date ↑" -> list.sort(Comparator.comparing((Appointment a)->a.date).thenComparing(a->a.time));
-                case "Date ↓" -> list.sort(Comparator.comparing((Appointment a)->a.date).thenComparing(a->a.time).reversed());
-                case "Type"   -> list.sort(Comparator.comparing(a->a.type));
-                case "Doctor" -> list.sort(Comparator.comparing(a->a.doctor));
+        private static LocalDate toLocalDate(Date d) {
+            return d.toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDate();
+        }
+
+        /** One filter/sort request; run() fills rows/prices off the EDT from the column snapshot. */
+        public static final class Query {
+            final long seq;
+            final String wantType, doctorQ, sort;
+            final LocalDate from, to;
+            final AppointmentTable.Snapshot snapshot;
+            final smm.model.InsuranceLevel insurance;
+            final smm.model.AppModel.PricingType pricing;
+            int[] rows;
+            double[] prices;
+
+            public Query(long seq, String wantType, String doctorQ, String sort, LocalDate from, LocalDate to,
+                         AppointmentTable.Snapshot snapshot,
+                         smm.model.InsuranceLevel insurance, smm.model.AppModel.PricingType pricing) {
+                this.seq = seq; this.wantType = wantType; this.doctorQ = doctorQ; this.sort = sort;
+                this.from = from; this.to = to;
+                this.snapshot = snapshot; this.insurance = insurance; this.pricing = pricing;
             }
 
-            for (Appointment a : list) {
-                boolean okType = wantType.equals("All") || a.type.equalsIgnoreCase(wantType);
-                boolean okDoc  = doctorQ.isEmpty() || a.doctor.toLowerCase().contains(doctorQ);
-                boolean okDate = (!a.date.isBefore(from) && !a.date.isAfter(to));
-                if (okType && okDoc && okDate) {
-                    model.addRow(new Object[]{
-                            a.id, a.date, a.time, a.type, a.service, a.doctor, a.medicalCenter,
-                            a.paid ? "Yes" : "No", M.priceAfterPlan(a.price)
-                    });
-                }
+            public Query run(java.util.function.BooleanSupplier cancelled) {
+                int[] r = snapshot.select(from, to, wantType.equals("All") ? null : wantType, doctorQ);
+                if (cancelled.getAsBoolean()) return null;
+                r = switch (sort) {
+                    case "Date ↓" -> snapshot.sortByDateTimeDescending(r);
+                    case "Type"   -> snapshot.sortByType(r);
+                    case "Doctor" -> snapshot.sortByDoctor(r);
+                    default       -> snapshot.sortByDateTime(r); // "Date ↑"
+                };
+                if (cancelled.getAsBoolean()) return null;
+                rows = r;
+                prices = snapshot.pricesAfterPlan(r, insurance, pricing);
+                return this;
             }
         }
 
@@ -273,9 +302,9 @@ public class AppointmentsPages {
                   .append("After insurance/pricing: ").append(m.priceAfterPlan(a.price)).append("€\n")
                   .append("Pricing: ").append(m.currentPricing()).append(" | Policy: ").append(m.currentPolicy()).append("\n")
                   .append("Paid: ").append(a.paid ? "Yes" : "No").append("\n");
-                var inv = m.invoices.stream().filter(i -> Objects.equals(i.appointmentId, a.id)).findFirst();
-                inv.ifPresent(invoice -> sb.append("Invoice: ").append(invoice.id).append(" • ").append(invoice.issuedOn)
-                        .append(" • ").append(invoice.paid ? "Paid" : "Unpaid").append("\n"));
+                var invoice = m.invoices.forAppointment(a.id);
+                if (invoice != null) sb.append("Invoice: ").append(invoice.id).append(" • ").append(invoice.issuedOn)
+                        .append(" • ").append(invoice.paid ? "Paid" : "Unpaid").append("\n");
                 info.setText(sb.toString());
             }
         }
@@ -326,16 +355,18 @@ public class AppointmentsPages {
 
                 JButton save = new JButton("Save");
                 save.addActionListener(e -> {
-                    appt.type = tfType.getText().trim();
-                    appt.service = tfService.getText().trim();
-                    appt.doctor = tfDoctor.getText().trim();
-                    appt.medicalCenter = tfCenter.getText().trim();
-                    appt.roomType = Objects.toString(cbRoom.getSelectedItem(), "Shared");
-                    appt.equipment = tfEquip.getText().trim();
-                    appt.date = LocalDate.parse(new java.text.SimpleDateFormat("yyyy-MM-dd").format((Date) spDate.getValue()));
-                    appt.time = java.time.LocalTime.parse(new java.text.SimpleDateFormat("HH:mm").format((Date) spTime.getValue()));
-                    appt.price = ((Number) spPrice.getValue()).doubleValue();
-                    appt.paid = cbPaid.isSelected();
+                    var result = c.rescheduleAppointment(appt.id,
+                            LocalDate.parse(new java.text.SimpleDateFormat("yyyy-MM-dd").format((Date) spDate.getValue())),
+                            java.time.LocalTime.parse(new java.text.SimpleDateFormat("HH:mm").format((Date) spTime.getValue())),
+                            tfType.getText().trim(), tfService.getText().trim(),
+                            tfDoctor.getText().trim(), tfCenter.getText().trim(),
+                            Objects.toString(cbRoom.getSelectedItem(), "Shared"), tfEquip.getText().trim(),
+                            ((Number) spPrice.getValue()).doubleValue(), cbPaid.isSelected());
+                    if (!result.isBooked()) {
+                        JOptionPane.showMessageDialog(this, conflictMessage("Cannot move the appointment:", result.conflicts()),
+                                "Slot taken", JOptionPane.WARNING_MESSAGE);
+                        return;
+                    }
                     dispose();
                 });
                 JButton cancel = new JButton("Cancel");
@@ -352,18 +383,74 @@ public class AppointmentsPages {
         }
     }
 
+    /** Dialog text for a rejected booking or reschedule: one line per clash. */
+    static String conflictMessage(String title, List<BookingConflict> conflicts) {
+        StringBuilder sb = new StringBuilder(title);
+        for (BookingConflict k : conflicts) sb.append("\n• ").append(k.describe());
+        return sb.toString();
+    }
+
+    /** Read-only table over snapshot rows; a new result replaces the rows in one step. */
+    static class AppointmentTableModel extends javax.swing.table.AbstractTableModel {
+        private static final String[] COLUMNS = {"ID","Date","Time","Type","Service","Doctor","Center","Paid","Price (€)"};
+        private AppointmentTable.Snapshot snapshot;
+        private int[] rows = new int[0];
+        private double[] prices = new double[0];
+
+        void setRows(AppointmentTable.Snapshot snapshot, int[] rows, double[] prices) {
+            this.snapshot = snapshot;
+            this.rows = rows;
+            this.prices = prices;
+            fireTableDataChanged();
+        }
+
+        UUID idAt(int row) { return snapshot.id(rows[row]); }
+
+        @Override public int getRowCount() { return rows.length; }
+        @Override public int getColumnCount() { return COLUMNS.length; }
+        @Override public String getColumnName(int c) { return COLUMNS[c]; }
+        @Override public boolean isCellEditable(int r,int c){ return false; }
+        @Override public Class<?> getColumnClass(int c){
+            return switch (c){
+                case 0 -> UUID.class;
+                case 1 -> java.time.LocalDate.class;
+                case 2 -> java.time.LocalTime.class;
+                case 7 -> String.class;
+                case 8 -> Double.class;
+                default -> String.class;
+            };
+        }
+
+        @Override public Object getValueAt(int r, int c) {
+            int row = rows[r];
+            return switch (c) {
+                case 0 -> snapshot.id(row);
+                case 1 -> snapshot.date(row);
+                case 2 -> snapshot.time(row);
+                case 3 -> snapshot.type(row);
+                case 4 -> snapshot.service(row);
+                case 5 -> snapshot.doctor(row);
+                case 6 -> snapshot.center(row);
+                case 7 -> snapshot.paid(row) ? "Yes" : "No";
+                default -> prices[r];
+            };
+        }
+    }
+
     /*  Create Booking Page */
     public static class CreatePage extends NavAwarePanel {
         private final Controller c;
         private final Runnable after;
 
         private final JComboBox cbType = new JComboBox<>(new String[]{"Consultation", "Surgery", "Follow-up"});
-        private final JComboBox cbService = new JComboBox<>(new String[]{"Dermatology", "Cardiology", "Radiology", "General"});
+        private final JComboBox<String> cbService = new JComboBox<>();
         private final JTextField tfCenter = new JTextField("St-Luc", 12);
 
-        // Doctor list (scrollable)
-        private final DefaultListModel<String> doctorsModel = new DefaultListModel<>();
+        // Doctor list (scrollable), narrowed by the "Find" typeahead
+        private final JTextField tfFind = new JTextField(12);
+        private final DoctorListModel doctorsModel = new DoctorListModel();
         private final JList<String> listDoctors = new JList<>(doctorsModel);
+        private DoctorRegistry shownCatalog; // catalog the service box was filled from
 
         private final JSpinner spDate = new JSpinner(new SpinnerDateModel(new Date(), null, null, Calendar.DAY_OF_MONTH));
         private final JSpinner spTime = new JSpinner(new SpinnerDateModel(new Date(), null, null, Calendar.MINUTE));
@@ -372,29 +459,22 @@ public class AppointmentsPages {
         private final JCheckBox chkCalendar = new JCheckBox("Add to Calendar", true);
         private final JCheckBox chkPayNow = new JCheckBox("Pay Now");
 
-        // Map doctor to base price
-        private static final Map<String, Double> DOCTOR_PRICES;
-        static {
-            DOCTOR_PRICES = new HashMap<>();
-            DOCTOR_PRICES.put("Dr. Martin", 120.0);
-            DOCTOR_PRICES.put("Dr. Lambert", 100.0);
-            DOCTOR_PRICES.put("Dr. Rossi", 130.0);
-            DOCTOR_PRICES.put("Dr. Duval", 150.0);
-            DOCTOR_PRICES.put("Dr. Bernard", 110.0);
-            DOCTOR_PRICES.put("Dr. Kassis", 115.0);
-            DOCTOR_PRICES.put("Dr. Selim", 140.0);
-            DOCTOR_PRICES.put("Dr. Pereira", 125.0);
-            DOCTOR_PRICES.put("Dr. Smith", 90.0);
-            DOCTOR_PRICES.put("Dr. Patel", 100.0);
-            DOCTOR_PRICES.put("Dr. Garcia", 95.0);
-        }
+        private static final int MAX_MATCHES = 50;
+
+        /** The shown doctors; replaced in one step (one change event, not one per name). */
+        private static final class DoctorListModel extends AbstractListModel<String> {
+            private List<String> doctors = List.of();
 
-        private static final Map<String, String[]> DOCTORS = Map.of(
-            "Dermatology", new String[]{"Dr. Martin","Dr. Lambert","Dr. Rossi"},
-            "Cardiology", new String[]{"Dr. Duval","Dr. Bernard","Dr. Kassis"},
-            "Radiology", new String[]{"Dr. Selim","Dr. Pereira"},
-            "General", new String[]{"Dr. Smith","Dr. Patel","Dr. Garcia"}
-        );
+            void show(List<String> list) {
+                int old = doctors.size();
+                doctors = list;
+                if (old > 0) fireIntervalRemoved(this, 0, old - 1);
+                if (!list.isEmpty()) fireIntervalAdded(this, 0, list.size() - 1);
+            }
+
+            @Override public int getSize() { return doctors.size(); }
+            @Override public String getElementAt(int i) { return doctors.get(i); }
+        }
 
         public CreatePage(Controller c, Runnable afterSave) {
             this.c = c; this.after = afterSave;
@@ -413,11 +493,15 @@ public class AppointmentsPages {
             form.add(Box.createVerticalStrut(6));
             form.add(UI.row(new JLabel("Type:"), cbType, new JLabel("Service:"), cbService));
             form.add(Box.createVerticalStrut(4));
+            form.add(UI.row(new JLabel("Find doctor:"), tfFind));
+            form.add(Box.createVerticalStrut(4));
             JScrollPane spDoctors = new JScrollPane(listDoctors);
             spDoctors.setPreferredSize(new Dimension(220, 120));
             form.add(UI.row(new JLabel("Doctor:"), spDoctors, new JLabel("Center:"), tfCenter));
             form.add(Box.createVerticalStrut(4));
-            form.add(UI.row(new JLabel("Date:"), spDate, new JLabel("Time:"), spTime));
+            JButton nextFree = new JButton("Next free…");
+            nextFree.addActionListener(e -> pickFreeSlot());
+            form.add(UI.row(new JLabel("Date:"), spDate, new JLabel("Time:"), spTime, nextFree));
             form.add(Box.createVerticalStrut(4));
             lbComputed.setFont(lbComputed.getFont().deriveFont(Font.BOLD));
             form.add(UI.row(lbComputed));
@@ -448,22 +532,64 @@ public class AppointmentsPages {
             // listeners
             cbService.addActionListener(e -> refreshDoctors());
             listDoctors.addListSelectionListener(e -> updateComputedPrice());
+            tfFind.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+                public void insertUpdate(javax.swing.event.DocumentEvent e){ refreshDoctors(); }
+                public void removeUpdate(javax.swing.event.DocumentEvent e){ refreshDoctors(); }
+                public void changedUpdate(javax.swing.event.DocumentEvent e){ refreshDoctors(); }
+            });
 
             // initial
-            refreshDoctors();
+            refreshServices();
             updateComputedPrice();
         }
 
+        /** Refills the service box from the current catalog, keeping the selection if it still exists. */
+        private void refreshServices() {
+            shownCatalog = c.getDoctors();
+            Object selected = cbService.getSelectedItem();
+            cbService.setModel(new DefaultComboBoxModel<>(shownCatalog.services().toArray(new String[0])));
+            if (selected != null && shownCatalog.services().contains(selected)) cbService.setSelectedItem(selected);
+            refreshDoctors();
+        }
+
         private void refreshDoctors() {
-            doctorsModel.clear();
             String svc = Objects.toString(cbService.getSelectedItem(), "General");
-            for (String d : DOCTORS.getOrDefault(svc, DOCTORS.get("General"))) doctorsModel.addElement(d);
-            if (!doctorsModel.isEmpty()) listDoctors.setSelectedIndex(0);
+            String find = tfFind.getText();
+            doctorsModel.show(find.isBlank() ? serviceDoctors(svc) : c.getDoctors().complete(find, svc, MAX_MATCHES));
+            if (doctorsModel.getSize() > 0) listDoctors.setSelectedIndex(0);
+        }
+
+        private List<String> serviceDoctors(String svc) {
+            var doctors = c.getDoctors().doctorsFor(svc);
+            return doctors.isEmpty() ? c.getDoctors().doctorsFor("General") : doctors;
+        }
+
+        /** Offers the next free slots of the service's doctors from the chosen date; picking one fills the form. */
+        private void pickFreeSlot() {
+            String svc = Objects.toString(cbService.getSelectedItem(), "General");
+            var date = LocalDate.parse(new java.text.SimpleDateFormat("yyyy-MM-dd").format((Date) spDate.getValue()));
+            var from = java.time.LocalDateTime.of(date, LocalTime.MIN);
+            if (from.isBefore(java.time.LocalDateTime.now())) from = java.time.LocalDateTime.now();
+            var slots = c.getModel().appointments.availability()
+                    .nextFree(serviceDoctors(svc), from, 8);
+            if (slots.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "No free slot for " + svc + " in the next year.");
+                return;
+            }
+            var pick = (AvailabilityEngine.FreeSlot) JOptionPane.showInputDialog(this, "Free slots for " + svc + ":",
+                    "Next free", JOptionPane.PLAIN_MESSAGE, null, slots.toArray(), slots.get(0));
+            if (pick == null) return;
+            listDoctors.setSelectedValue(pick.doctor(), true);
+            Calendar cal = Calendar.getInstance();
+            cal.set(pick.date().getYear(), pick.date().getMonthValue() - 1, pick.date().getDayOfMonth(),
+                    pick.time().getHour(), pick.time().getMinute(), 0);
+            spDate.setValue(cal.getTime());
+            spTime.setValue(cal.getTime());
         }
 
         private void updateComputedPrice() {
             String doctor = listDoctors.getSelectedValue();
-            double base = DOCTOR_PRICES.getOrDefault(doctor, 100.0);
+            double base = c.doctorPrice(doctor);
             double afterPlan = c.getModel().priceAfterPlan(base);
 
             if (c.getModel().canDeferredPayment()) {
@@ -487,12 +613,12 @@ public class AppointmentsPages {
             }
             var date = LocalDate.parse(new java.text.SimpleDateFormat("yyyy-MM-dd").format((Date) spDate.getValue()));
             var time = LocalTime.parse(new java.text.SimpleDateFormat("HH:mm").format((Date) spTime.getValue()));
-            double base = DOCTOR_PRICES.getOrDefault(doctor, 100.0);
+            double base = c.doctorPrice(doctor);
 
             boolean payNowEffective = chkPayNow.isSelected();
             if (c.getModel().canDeferredPayment()) payNowEffective = false;
 
-            var a = c.createBooking(
+            var result = c.tryBooking(
                 date, time,
                 (String) cbType.getSelectedItem(),
                 (String) cbService.getSelectedItem(),
@@ -501,6 +627,12 @@ public class AppointmentsPages {
                 base,
                 chkCalendar.isSelected(), payNowEffective
             );
+            if (!result.isBooked()) {
+                JOptionPane.showMessageDialog(this, conflictMessage("Cannot book this slot:", result.conflicts()),
+                        "Slot taken", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            var a = result.appointment();
 
             double due = c.getModel().priceAfterPlan(a.price);
             String msg = c.getModel().canDeferredPayment()
@@ -514,8 +646,10 @@ public class AppointmentsPages {
             go("Appointments • List");
         }
 
+        @Override public Set<Domain> dependsOn() { return EnumSet.of(Domain.FEATURES, Domain.DOCTORS); }
         @Override public void refresh() {
-            updateComputedPrice(); // recompute in case insurance/pricing changed
+            if (c.getDoctors() != shownCatalog) refreshServices();
+            updateComputedPrice(); // recompute in case insurance/pricing or the catalog changed
         }
     }
 
@@ -538,8 +672,8 @@ public class AppointmentsPages {
                     JOptionPane.showMessageDialog(this, "Payment is deferred under current Pricing.");
                     return;
                 }
-                c.getModel().invoices.stream().filter(i -> !i.paid).findFirst()
-                        .ifPresent(i -> { c.payInvoice(i.id); JOptionPane.showMessageDialog(this, "Invoice paid."); });
+                var i = c.getModel().invoices.firstUnpaid();
+                if (i != null) { c.payInvoice(i.id); JOptionPane.showMessageDialog(this, "Invoice paid."); }
             });
 
             add(UI.h1("Appointment Details"), BorderLayout.NORTH);
@@ -547,6 +681,7 @@ public class AppointmentsPages {
             add(UI.row(resched, cancel, payNow), BorderLayout.SOUTH);
         }
 
+        @Override public Set<Domain> dependsOn() { return EnumSet.of(Domain.APPOINTMENTS, Domain.INVOICES, Domain.FEATURES); }
         @Override public void refresh() {
             var m = c.getModel();
             var a = c.getSelectedAppointment();
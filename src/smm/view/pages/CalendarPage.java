@@ -1,9 +1,12 @@
 package smm.view.pages;
 import smm.controller.Controller;
+import smm.view.AppFrame.Domain;
 import smm.view.NavAwarePanel;
 import smm.view.UI;
 import javax.swing.*;
 import java.awt.*;
+import java.util.EnumSet;
+import java.util.Set;
 
 public class CalendarPage extends NavAwarePanel {
     private final Controller c;
@@ -20,6 +23,7 @@ public class CalendarPage extends NavAwarePanel {
 
     private JButton btn(String t){ JButton b=new JButton(t); b.addActionListener(e->go(t)); return b; }
 
+    @Override public Set<Domain> dependsOn() { return EnumSet.of(Domain.APPOINTMENTS, Domain.REMINDERS); }
     @Override public void refresh() {
         StringBuilder sb = new StringBuilder();
         for (var a : c.getModel().appointments) {
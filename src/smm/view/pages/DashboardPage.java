@@ -9,7 +9,6 @@ import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
 import java.awt.*;
 import java.time.LocalDate;
-import java.util.Comparator;
 import java.util.Optional;
 
 public class DashboardPage extends NavAwarePanel {
@@ -142,14 +141,13 @@ public class DashboardPage extends NavAwarePanel {
         policyLabel.setText(c.getModel().currentPolicy());
 
         var m = c.getModel();
-        long unpaid = m.invoices.stream().filter(i -> !i.paid).count();
-        Optional<Appointment> next = m.appointments.stream()
-                .min(Comparator.comparing((Appointment a) -> a.date).thenComparing(a -> a.time));
+        long unpaid = m.invoices.unpaidCount();
+        Optional<Appointment> next = Optional.ofNullable(m.appointments.first());
 
         StringBuilder nb = new StringBuilder();
         nb.append("• Unpaid invoices: ").append(unpaid).append("\n");
         nb.append("• Reminders enabled: ")
-          .append(m.reminders.stream().filter(r -> r.enabled).count()).append("\n");
+          .append(m.enabledReminderCount()).append("\n");
         if (next.isPresent()) {
             var a = next.get();
             nb.append("• Next appointment: ").append(a.date).append(" ").append(a.time)
@@ -157,10 +155,13 @@ public class DashboardPage extends NavAwarePanel {
         } else {
             nb.append("• No upcoming appointments.");
         }
+        for (var r : m.recentlyFired().stream().limit(3).toList()) {
+            nb.append("\n• Reminder: ").append(r.text).append(" (").append(r.when.toLocalDate()).append(")");
+        }
         notifications.setText(nb.toString());
 
         LocalDate today = LocalDate.now();
-        var todayAppt = m.appointments.stream().filter(a -> a.date.equals(today)).findFirst();
+        var todayAppt = m.appointments.on(today).stream().findFirst();
         if (todayAppt.isPresent()) {
             var a = todayAppt.get();
             doctorAlert.setText("Doctor available today: " + a.doctor + " — " + a.service +
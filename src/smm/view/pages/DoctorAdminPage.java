@@ -1,11 +1,14 @@
 package smm.view.pages;
 
 import smm.controller.Controller;
+import smm.view.AppFrame.Domain;
 import smm.view.NavAwarePanel;
 import smm.view.UI;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.EnumSet;
+import java.util.Set;
 
 public class DoctorAdminPage extends NavAwarePanel {
     private final Controller c;
@@ -19,12 +22,22 @@ public class DoctorAdminPage extends NavAwarePanel {
         add(new JScrollPane(area), BorderLayout.CENTER);
     }
 
+    @Override public Set<Domain> dependsOn() { return EnumSet.of(Domain.APPOINTMENTS, Domain.DOCTORS); }
     @Override public void refresh() {
         StringBuilder sb = new StringBuilder("Assigned Appointments (demo):\n");
         for (var a : c.getModel().appointments) {
             sb.append("• ").append(a.date).append(" ").append(a.time).append(" – ").append(a.service)
               .append(" with ").append(a.doctor).append("\n");
         }
+        var m = c.getCatalogMetrics();
+        sb.append("\nDoctor catalog: ").append(c.getDoctors().size()).append(" doctors, ")
+          .append(c.getDoctors().services().size()).append(" services (edit doctors.csv to reload)\n");
+        sb.append("• reloads: ").append(m.reloads()).append(", failed: ").append(m.failures())
+          .append(m.lastError() == null ? "" : " (last: " + m.lastError() + ")").append("\n");
+        sb.append("• reload latency µs: last ").append(m.lastReloadMicros()).append(", avg ").append(m.avgReloadMicros())
+          .append(", max ").append(m.maxReloadMicros()).append("\n");
+        sb.append("• price lookups: ").append(m.priceLookups()).append(", in flight at last swap: ")
+          .append(m.readersAtLastSwap()).append(" (max ").append(m.maxReadersAtSwap()).append(")\n");
         sb.append("\nManage pricing rules (not implemented in demo).");
         area.setText(sb.toString());
     }
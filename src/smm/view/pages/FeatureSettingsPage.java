@@ -2,6 +2,7 @@ package smm.view.pages;
 
 import smm.controller.Controller;
 import smm.model.InsuranceLevel;
+import smm.view.AppFrame.Domain;
 import smm.view.NavAwarePanel;
 import smm.view.UI;
 
@@ -10,6 +11,8 @@ import javax.swing.border.TitledBorder;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * Feature Settings page:
@@ -117,6 +120,8 @@ public class FeatureSettingsPage extends NavAwarePanel {
         go("Home / Dashboard");
     }
 
+    @Override public Set<Domain> dependsOn() { return EnumSet.of(Domain.FEATURES); }
+
     @Override
     public void refresh() {
         // Sync radios from current state
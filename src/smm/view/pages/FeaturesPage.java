@@ -3,6 +3,7 @@ package smm.view.pages;
 import smm.controller.Controller;
 import smm.model.InsuranceLevel;
 import smm.view.AppFrame;
+import smm.view.AppFrame.Domain;
 import smm.view.NavAwarePanel;
 import smm.view.UI;
 
@@ -10,6 +11,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.EnumSet;
 
 /**
  * Runtime feature toggles page.
@@ -145,6 +147,8 @@ public class FeaturesPage extends NavAwarePanel {
     }
 
     /** Sync UI from controller state. */
+    @Override public Set<Domain> dependsOn() { return EnumSet.of(Domain.FEATURES); }
+
     @Override
     public void refresh() {
         var on = c.getEnabledModules();
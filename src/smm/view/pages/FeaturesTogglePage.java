@@ -1,6 +1,7 @@
 package smm.view.pages;
 
 import smm.controller.Controller;
+import smm.view.AppFrame.Domain;
 import smm.view.NavAwarePanel;
 import smm.view.UI;
 
@@ -8,6 +9,8 @@ import javax.swing.*;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.EnumSet;
+import java.util.Set;
 
 public class FeaturesTogglePage extends NavAwarePanel {
     private final Controller c;
@@ -41,6 +44,7 @@ public class FeaturesTogglePage extends NavAwarePanel {
         ), BorderLayout.NORTH);
     }
 
+    @Override public Set<Domain> dependsOn() { return EnumSet.of(Domain.FEATURES); }
     @Override public void refresh() {
         cbAppointments.setSelected(c.isModuleEnabled("APPOINTMENTS"));
         cbHistory.setSelected(c.isModuleEnabled("MEDICAL_HISTORY"));
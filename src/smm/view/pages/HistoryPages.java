@@ -2,6 +2,7 @@ package smm.view.pages;
 
 import smm.controller.Controller;
 import smm.model.HistoryRecord;
+import smm.view.AppFrame.Domain;
 import smm.view.NavAwarePanel;
 import smm.view.UI;
 
@@ -43,16 +44,15 @@ public class HistoryPages {
             add(UI.row(details, add), BorderLayout.SOUTH);
         }
 
+        @Override public Set<Domain> dependsOn() { return EnumSet.of(Domain.HISTORY); }
         @Override public void refresh() {
             model.setRowCount(0);
             String q = tfSearch.getText().trim().toLowerCase();
-            var list = new ArrayList<>(c.getModel().history);
+            var list = c.getModel().history.search(q); // indexed, no full scan
             if (cbSort.getSelectedIndex() == 0) list.sort(Comparator.comparing((HistoryRecord r) -> r.date).reversed());
             else if (cbSort.getSelectedIndex() == 1) list.sort(Comparator.comparing(r -> r.kind));
             for (HistoryRecord r : list) {
-                if (q.isEmpty() || r.details.toLowerCase().contains(q) || r.kind.toLowerCase().contains(q)) {
-                    model.addRow(new Object[]{r.date, r.kind, r.details});
-                }
+                model.addRow(new Object[]{r.date, r.kind, r.details});
             }
         }
     }
@@ -69,6 +69,7 @@ public class HistoryPages {
             add(new JScrollPane(area), BorderLayout.CENTER);
         }
 
+        @Override public Set<Domain> dependsOn() { return EnumSet.of(Domain.HISTORY); }
         @Override public void refresh() {
             StringBuilder sb = new StringBuilder();
             for (var r : c.getModel().history) {
@@ -101,6 +102,7 @@ public class HistoryPages {
             ), BorderLayout.NORTH);
         }
 
+        @Override public Set<Domain> dependsOn() { return EnumSet.noneOf(Domain.class); }
         @Override public void refresh() {}
     }
 }
@@ -2,11 +2,14 @@ package smm.view.pages;
 
 import smm.controller.Controller;
 import smm.model.InsuranceLevel;
+import smm.view.AppFrame.Domain;
 import smm.view.NavAwarePanel;
 import smm.view.UI;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.EnumSet;
+import java.util.Set;
 
 public class InsurancePage extends NavAwarePanel {
     private final Controller c; private final Runnable after;
@@ -36,6 +39,7 @@ public class InsurancePage extends NavAwarePanel {
         ), BorderLayout.NORTH);
     }
 
+    @Override public Set<Domain> dependsOn() { return EnumSet.of(Domain.FEATURES); }
     @Override public void refresh() {
         policy.setText(c.getModel().currentPolicy());
         switch (c.getModel().profile.insurance) {
@@ -2,6 +2,7 @@ package smm.view.pages;
 
 import smm.controller.Controller;
 import smm.model.Invoice;
+import smm.view.AppFrame.Domain;
 import smm.view.NavAwarePanel;
 import smm.view.UI;
 
@@ -9,6 +10,8 @@ import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.util.UUID;
+import java.util.EnumSet;
+import java.util.Set;
 
 public class PaymentPages {
 
@@ -40,6 +43,7 @@ public class PaymentPages {
 
         private JButton btn(String t){ JButton b=new JButton(t); b.addActionListener(e->go(t)); return b; }
 
+        @Override public Set<Domain> dependsOn() { return EnumSet.of(Domain.INVOICES); }
         @Override public void refresh() {
             model.setRowCount(0);
             for (Invoice inv : c.getModel().invoices) {
@@ -60,6 +64,7 @@ public class PaymentPages {
             add(new JScrollPane(area), BorderLayout.CENTER);
         }
 
+        @Override public Set<Domain> dependsOn() { return EnumSet.of(Domain.APPOINTMENTS, Domain.FEATURES); }
         @Override public void refresh() {
             var m = c.getModel();
             String policy = m.currentPolicy();
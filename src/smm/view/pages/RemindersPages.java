@@ -2,6 +2,7 @@ package smm.view.pages;
 
 import smm.controller.Controller;
 import smm.model.Reminder;
+import smm.view.AppFrame.Domain;
 import smm.view.NavAwarePanel;
 import smm.view.UI;
 
@@ -12,6 +13,8 @@ import java.time.LocalDateTime;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.UUID;
+import java.util.EnumSet;
+import java.util.Set;
 
 public class RemindersPages {
 
@@ -42,6 +45,7 @@ public class RemindersPages {
 
         private JButton btn(String t){ JButton b=new JButton(t); b.addActionListener(e->go(t)); return b; }
 
+        @Override public Set<Domain> dependsOn() { return EnumSet.of(Domain.REMINDERS); }
         @Override public void refresh() {
             model.setRowCount(0);
             for (Reminder r : c.getModel().reminders) {
@@ -65,7 +69,7 @@ public class RemindersPages {
             add.addActionListener(e -> {
                 Date d = (Date) spWhen.getValue();
                 var when = LocalDateTime.ofInstant(d.toInstant(), java.time.ZoneId.systemDefault());
-                c.getModel().reminders.add(new Reminder((String) cbType.getSelectedItem(), tfText.getText(), when));
+                c.addReminder(new Reminder((String) cbType.getSelectedItem(), tfText.getText(), when));
                 JOptionPane.showMessageDialog(this, "Reminder added.");
                 after.run();
                 go("Reminders • Dashboard");
@@ -79,6 +83,7 @@ public class RemindersPages {
             ), BorderLayout.NORTH);
         }
 
+        @Override public Set<Domain> dependsOn() { return EnumSet.noneOf(Domain.class); }
         @Override public void refresh() {}
     }
 }
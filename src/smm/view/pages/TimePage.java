@@ -4,11 +4,14 @@ import smm.controller.Controller;
 import smm.model.TimeEvent;
 import smm.model.TimeEventSystem;
 import smm.model.TimeObserver;
+import smm.view.AppFrame.Domain;
 import smm.view.NavAwarePanel;
 import smm.view.UI;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.EnumSet;
+import java.util.Set;
 
 public class TimePage extends NavAwarePanel implements TimeObserver {
     private final Controller c;
@@ -45,8 +48,7 @@ public class TimePage extends NavAwarePanel implements TimeObserver {
 
         // 2) “Today” appointments on the new date
         var M = c.getModel();
-        var todays = new java.util.ArrayList<>(M.appointments);
-        todays.removeIf(a -> !a.date.equals(event.newDate));
+        var todays = M.appointments.on(event.newDate);
         if (!todays.isEmpty()) {
             for (var a : todays) {
                 log.append("   Today: " + a.time + " – " + a.service + " (" + a.doctor + ") @ " + a.medicalCenter + "\n");
@@ -58,10 +60,7 @@ public class TimePage extends NavAwarePanel implements TimeObserver {
         // 3) Appointments that were crossed & finished during the jump
         //    They are now in history with dates between (oldDate+1) and newDate (inclusive of old<new).
         if (event.newDate.isAfter(event.oldDate)) {
-            var crossed = new java.util.ArrayList<>(M.history);
-            var from = event.oldDate.plusDays(1);
-            var to   = event.newDate;
-            crossed.removeIf(h -> h.date.isBefore(from) || h.date.isAfter(to));
+            var crossed = M.history.between(event.oldDate.plusDays(1), event.newDate);
             if (!crossed.isEmpty()) {
                 for (var h : crossed) {
                     log.append("   Finished on " + h.date + ": " + h.details + "\n");
@@ -70,13 +69,8 @@ public class TimePage extends NavAwarePanel implements TimeObserver {
         }
 
         log.append("Appointments & history updated.\n");
-
-        // write unified log3 with TES info (keeps your state_log and state_log1 unchanged)
-        c.logTESAdvance3(event, java.util.List.copyOf(event.events));
-
-        // Refresh whole UI so Lists/History reflect the change
-        c.getView().refreshAll();
     }
 
+    @Override public Set<Domain> dependsOn() { return EnumSet.noneOf(Domain.class); }
     @Override public void refresh() {}
 }
@@ -1,10 +1,13 @@
 package smm.view.pages;
 
 import smm.controller.Controller;
+import smm.view.AppFrame.Domain;
 import smm.view.NavAwarePanel;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.EnumSet;
+import java.util.Set;
 
 public class UserProfilePage extends NavAwarePanel {
     private final Controller c;
@@ -80,9 +83,7 @@ public class UserProfilePage extends NavAwarePanel {
         // Save Button
         JButton save = new JButton("Save");
         save.addActionListener(e -> {
-            c.getModel().profile.name = tfName.getText();
-            c.getModel().profile.email = tfEmail.getText();
-            c.getModel().profile.phoneNumber = tfPhone.getText();
+            c.updateContact(tfName.getText(), tfEmail.getText(), tfPhone.getText());
             c.setNotificationPrefs(cbEmail.isSelected(), cbSMS.isSelected(), cbInApp.isSelected());
             c.setTwoFA(cb2FA.isSelected());
             JOptionPane.showMessageDialog(this, "Profile saved.");
@@ -101,6 +102,8 @@ public class UserProfilePage extends NavAwarePanel {
         add(save, BorderLayout.SOUTH);
     }
 
+    @Override public Set<Domain> dependsOn() { return EnumSet.of(Domain.PROFILE); }
+
     @Override
     public void refresh() {
         var p = c.getModel().profile;